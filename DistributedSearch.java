@@ -0,0 +1,288 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The DistributedSearch class is a coordinator that splits the root moves of the minimax search over several SearchWorker processes on the same machine,
+ * so that a search can use more memory and processors than one Java process. Every worker takes the next root move from a shared queue and is sent
+ * the value of the best move found so far (alpha) so that it can cut off moves that cannot be better. A worker that dies or takes longer than the time limit
+ * for one move is dropped and its move is given to another worker. If no worker is left the coordinator searches the remaining moves itself.
+ * Workers are told which neural network weights the game uses, if any, so that every root move is scored with the same evaluation.
+ *
+ * Usage: java DistributedSearch [workers] [board size] [depth]	starts local workers and compares a distributed search with a normal one.
+ */
+public class DistributedSearch implements AutoCloseable {
+    private static final int DEFAULT_TASK_TIMEOUT = 60000; // milliseconds one worker may use for one root move.
+    private static final int DEFAULT_WORKERS = 4;
+    private static final int POLL_TIME = 10; // milliseconds.
+    private static final char MAX_STONE = 'O';
+    private static final char MIN_STONE = 'X';
+    private final ArrayList<Connection> workers = new ArrayList<Connection> ();
+    private final int taskTimeout;
+
+    /**
+     * Connects to workers that are already running on localhost.
+     *
+     * @param	ports		The ports the workers listen on.
+     * @param	taskTimeout	How many milliseconds a worker may use for one root move before its move is given to another worker.
+     * @throws	IOException	If a worker cannot be reached.
+     */
+    public DistributedSearch(List<Integer> ports, int taskTimeout) throws IOException {
+        this.taskTimeout = taskTimeout;
+        try {
+            for (int port : ports) {
+                workers.add (new Connection (new Socket (InetAddress.getLoopbackAddress (), port), null));
+            }
+        } catch (IOException e) {
+            close ();
+            throw e;
+        }
+    }
+
+    private DistributedSearch(int taskTimeout) {
+        this.taskTimeout = taskTimeout;
+    }
+    /**
+     * Starts worker processes with the same Java installation and class path as this process and connects to them. The workers are stopped by close.
+     *
+     * @param	count		The number of workers.
+     * @param	taskTimeout	How many milliseconds a worker may use for one root move before its move is given to another worker.
+     * @return	DistributedSearch	The coordinator.
+     * @throws	IOException	If a worker cannot be started.
+     */
+    public static DistributedSearch startLocalWorkers(int count, int taskTimeout) throws IOException {
+        String java = System.getProperty ("java.home") + File.separator + "bin" + File.separator + "java";
+        DistributedSearch search = new DistributedSearch (taskTimeout);
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder (java, "-cp", System.getProperty ("java.class.path"), "SearchWorker", "0")
+                        .redirectError (ProcessBuilder.Redirect.INHERIT)
+                        .start ();
+                BufferedReader output = new BufferedReader (new InputStreamReader (process.getInputStream (), StandardCharsets.UTF_8));
+                String line = output.readLine ();
+                if (line == null || !line.startsWith (SearchWorker.LISTENING)) {
+                    process.destroy ();
+                    throw new IOException ("Worker did not start: " + line);
+                }
+                int port = Integer.parseInt (line.split (SearchWorker.SEPARATOR)[1]);
+                search.workers.add (new Connection (new Socket (InetAddress.getLoopbackAddress (), port), process));
+            }
+        } catch (IOException e) {
+            search.close ();
+            throw e;
+        }
+        return search;
+    }
+    /**
+     * Searches the current position of the game with the workers and returns the computer's best move without placing it.
+     *
+     * @param	game	The game to search, its search depth is used by the workers.
+     * @param	x		The X-coordinate that the human player played before computer turn.
+     * @param	y		The Y-coordinate that the human player played before computer turn.
+     * @return	Move	The best move with its value.
+     */
+    public Move searchBestMove(Gomoku game, int x, int y) {
+        final ArrayList<Move> rootMoves = game.getRootMoves ();
+        final String weights = game.getNeuralWeights () != null ? SearchWorker.WEIGHTS + SearchWorker.SEPARATOR + game.getNeuralWeights () : SearchWorker.WEIGHTS;
+        final String position = describePosition (game);
+        final LinkedBlockingDeque<Integer> tasks = new LinkedBlockingDeque<Integer> ();
+        final AtomicInteger pending = new AtomicInteger (rootMoves.size ());
+        final Best best = new Best ();
+        for (int i = 0; i < rootMoves.size (); i++) {
+            tasks.add (i);
+        }
+
+        ArrayList<Thread> threads = new ArrayList<Thread> ();
+        for (Connection worker : new ArrayList<Connection> (workers)) {
+            Thread thread = new Thread (() -> runWorker (worker, weights, position, rootMoves, tasks, pending, best));
+            threads.add (thread);
+            thread.start ();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join ();
+            } catch (InterruptedException e) {
+                Thread.currentThread ().interrupt ();
+            }
+        }
+
+        // moves are only left if every worker failed, they are then searched in this process.
+        Integer task;
+        while ((task = tasks.poll ()) != null) {
+            Move move = rootMoves.get (task);
+            best.offer (move, game.searchRootMove (move.getX (), move.getY (), best.alpha ()));
+        }
+        return best.move != null ? best.move : new Move (-1, -1, Integer.MIN_VALUE);
+    }
+    /**
+     * The work done for one worker: sends it the weights and the position and then keeps giving it root moves until all moves are searched.
+     * If the worker fails its current move is put back in the queue and the worker is dropped.
+     */
+    private void runWorker(Connection worker, String weights, String position, ArrayList<Move> rootMoves, LinkedBlockingDeque<Integer> tasks, AtomicInteger pending, Best best) {
+        try {
+            worker.socket.setSoTimeout (taskTimeout);
+            worker.send (weights);
+            worker.expect (SearchWorker.OK);
+            worker.send (position);
+            worker.expect (SearchWorker.OK);
+            while (pending.get () > 0) {
+                Integer task = tasks.poll (POLL_TIME, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    continue;
+                }
+                Move move = rootMoves.get (task);
+                try {
+                    worker.send (SearchWorker.SEARCH + SearchWorker.SEPARATOR + move.getX () + SearchWorker.SEPARATOR + move.getY () + SearchWorker.SEPARATOR + best.alpha ());
+                    String[] result = worker.expect (SearchWorker.RESULT).split (SearchWorker.SEPARATOR);
+                    best.offer (move, Integer.parseInt (result[3]));
+                    pending.decrementAndGet ();
+                } catch (IOException | RuntimeException e) {
+                    tasks.addFirst (task);
+                    throw e;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println ("Dropping worker: " + e);
+            worker.close ();
+            synchronized (workers) {
+                workers.remove (worker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+    /**
+     * Writes the POSITION command for the game: board size, search depth and every marker on the board.
+     *
+     * @param	game	The game.
+     * @return	String	The command.
+     */
+    private static String describePosition(Gomoku game) {
+        char[][] board = game.getBoard ();
+        StringBuilder position = new StringBuilder (SearchWorker.POSITION);
+        position.append (SearchWorker.SEPARATOR).append (game.getSize ());
+        position.append (SearchWorker.SEPARATOR).append (game.getSearchDepth ());
+        for (int x = 0; x < game.getSize (); x++) {
+            for (int y = 0; y < game.getSize (); y++) {
+                if (board[x][y] == MAX_STONE || board[x][y] == MIN_STONE) {
+                    position.append (SearchWorker.SEPARATOR).append (board[x][y]).append (x).append (',').append (y);
+                }
+            }
+        }
+        return position.toString ();
+    }
+    /**
+     * Returns how many workers are still connected.
+     *
+     * @return	int		The number of workers.
+     */
+    public int getWorkerCount() {
+        synchronized (workers) {
+            return workers.size ();
+        }
+    }
+    /**
+     * Tells every worker to quit and stops the workers that were started by this coordinator.
+     *
+     * @return	void
+     */
+    @Override
+    public void close() {
+        synchronized (workers) {
+            for (Connection worker : workers) {
+                worker.send (SearchWorker.QUIT);
+                worker.close ();
+            }
+            workers.clear ();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt (args[0]) : DEFAULT_WORKERS;
+        int size = args.length > 1 ? Integer.parseInt (args[1]) : 15;
+        int depth = args.length > 2 ? Integer.parseInt (args[2]) : 4;
+
+        Gomoku game = new Gomoku (size);
+        game.setSearchDepth (depth);
+        game.addStone (size / 2, size / 2, true);
+        game.addStone (size / 2 + 1, size / 2 + 1, false);
+
+        long startTime = System.currentTimeMillis ();
+        Move local = game.searchBestMove (size / 2 + 1, size / 2 + 1);
+        System.out.println ("Local:       " + local.getX () + "," + local.getY () + " value " + local.value () + " in " + (System.currentTimeMillis () - startTime) + "ms");
+        try (DistributedSearch search = startLocalWorkers (count, DEFAULT_TASK_TIMEOUT)) {
+            startTime = System.currentTimeMillis ();
+            Move distributed = search.searchBestMove (game, size / 2 + 1, size / 2 + 1);
+            System.out.println ("Distributed: " + distributed.getX () + "," + distributed.getY () + " value " + distributed.value () + " in " + (System.currentTimeMillis () - startTime) + "ms with " + count + " workers");
+        }
+    }
+
+    /**
+     * The best root move found so far, shared by the worker threads. Its value is the alpha sent with new moves.
+     */
+    private static final class Best {
+        private Move move;
+        private int value = Integer.MIN_VALUE;
+
+        private synchronized int alpha() {
+            return value;
+        }
+        // a move that is not strictly better may have been cut off, so its value is only an upper bound and it cannot replace the best move.
+        private synchronized void offer(Move candidate, int candidateValue) {
+            if (move == null || candidateValue > value) {
+                move = new Move (candidate.getX (), candidate.getY (), candidateValue);
+                value = candidateValue;
+            }
+        }
+    }
+
+    /**
+     * A connection to one worker, and its process if the coordinator started it.
+     */
+    private static final class Connection {
+        private final Socket socket;
+        private final Process process;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        private Connection(Socket socket, Process process) throws IOException {
+            this.socket = socket;
+            this.process = process;
+            in = new BufferedReader (new InputStreamReader (socket.getInputStream (), StandardCharsets.UTF_8));
+            out = new PrintWriter (socket.getOutputStream (), true, StandardCharsets.UTF_8);
+        }
+
+        private void send(String command) {
+            out.println (command);
+        }
+
+        private String expect(String answer) throws IOException {
+            String line = in.readLine ();
+            if (line == null || !line.startsWith (answer)) {
+                throw new IOException ("Unexpected answer from worker: " + line);
+            }
+            return line;
+        }
+
+        private void close() {
+            try {
+                socket.close ();
+            } catch (IOException e) {
+                // the worker is gone either way.
+            }
+            if (process != null) {
+                process.destroy ();
+            }
+        }
+    }
+}// DistributedSearch
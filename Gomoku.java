@@ -2,7 +2,13 @@
 
 
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 /**
  * The game Gomoku is a game similar to TicTacToe however usually involves a bigger board than 3x3. The board size of the game in this program is decided by the player when calling the constructor.
@@ -13,15 +19,35 @@ import java.util.ArrayList;
 public class Gomoku {
     private static final int DEPTH = 5;
     private static final int NONE = 0;
-    private static final int ZERO = 0;
-    private static final int WINNING_NUMBER = 5;
     private static final int NEGATIVE_INFINITY = Integer.MIN_VALUE;
     private static final int POSITIVE_INFINITY = Integer.MAX_VALUE;
+    private static final int HANDCRAFTED = 0; // the evaluator of Evaluate.
+    private static final int CLOCK_INTERVAL = 1023; // the clock is read once every 1024 nodes.
+    private static final int ITERATION_GROWTH = 4; // how many times longer the next depth is expected to take than the last one.
+    private static final int PROVEN_CAPACITY = 1 << 16; // entries of the table of proven results, about 1.3 MB.
     private final char[][] board; //
     private final Evaluate evaluate;
+    private final Symmetry symmetry;
+    private final RunTracker runs;
+    private final ThreatTracker threats;
     private final int size; // length of sides.
     private int emptySquares;
     private ArrayList<Move> availableNeighbours = new ArrayList<> ();
+    private MonteCarlo monteCarlo; // null when the game uses minimax.
+    private NeuralEvaluate neuralEvaluate; // null when the game uses the handcrafted evaluation.
+    private String neuralWeights; // absolute path of the weight file of neuralEvaluate.
+    private int evaluator = HANDCRAFTED; // which evaluation minimax uses, see getEvaluator.
+    private DistributedSearch distributedSearch; // null when minimax runs in this process.
+    private PositionStore positionStore; // null when search results are not stored.
+    private int searchDepth = DEPTH;
+    private int[][] variations = new int[DEPTH + 1][DEPTH + 1]; // the best line found below each ply of the current search, moves stored as x * size + y.
+    private int[] variationLengths = new int[DEPTH + 1];
+    private long nodeCount; // number of positions visited by minimax since the last reset.
+    private long hash; // Zobrist hash of the board, updated when markers are placed or removed.
+    private long deadline; // time in milliseconds when a timed search must stop, NONE when the search is not timed.
+    private boolean isTimeUp; // set when the deadline has passed, every node then returns at once.
+    private volatile boolean isStopRequested; // set from another thread to stop a timed search early.
+    private ProvenTable provenResults; // exact scores and winning moves from ProofSolver keyed by positionKey, null until ProofSolver has proven something.
 
     /**
      * A get-method that will return a char-matrix containing the board, or rather a matrix of characters in which the spaces contain either nothing, X or O where X and O are the characters for the two players.
@@ -52,6 +78,248 @@ public class Gomoku {
         this.emptySquares = size * size;
         board = new char[size][size];
         evaluate = new Evaluate (size);
+        symmetry = new Symmetry (size);
+        runs = new RunTracker (board);
+        threats = new ThreatTracker (board, runs);
+    }
+    /**
+     * This constructor works like the one above but also lets the caller choose which search the computer will use for the whole game.
+     * If useMonteCarlo is true the computer uses Monte Carlo Tree Search instead of minimax, which scales better to big boards such as 19x19.
+     *
+     * @param	size			The width of the board.
+     * @param	useMonteCarlo	True if the computer should use Monte Carlo Tree Search, false for minimax.
+     */
+    public Gomoku(int size, boolean useMonteCarlo) {
+        this (size);
+        if (useMonteCarlo) {
+            monteCarlo = new MonteCarlo (this);
+        }
+    }
+    /**
+     * Copies the position of another game (board, number of empty squares and neighbours) into this game. Used by searches that need a private board to play on.
+     *
+     * @param	other	The game whose position is copied, it must have the same size as this game.
+     * @return	void
+     */
+    void copyFrom(Gomoku other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException ("Cannot copy a board of a different size!");
+        }
+        for (int i = 0; i < size; i++) {
+            System.arraycopy (other.board[i], 0, board[i], 0, size);
+        }
+        emptySquares = other.emptySquares;
+        hash = other.hash;
+        availableNeighbours = new ArrayList<Move> (other.availableNeighbours);
+        runs.refreshAll ();
+        threats.refreshAll ();
+        if (neuralEvaluate != null) {
+            neuralEvaluate.refresh (board);
+        }
+    }
+    /**
+     * Loads a neural network from a weight file made by NeuralTrainer and lets minimax use it instead of Evaluate for the rest of the game.
+     *
+     * @param	path		The path of the weight file.
+     * @return	void
+     * @throws	IOException	If the file cannot be read or was trained for another board size.
+     * @throws	IllegalStateException	If the game uses a position store, whose results were searched with the evaluation used so far.
+     */
+    public void loadNeuralWeights(String path) throws IOException {
+        if (positionStore != null) {
+            throw new IllegalStateException ("Weights must be loaded before a position store is used!");
+        }
+        NeuralEvaluate network = NeuralEvaluate.load (path, size);
+        network.refresh (board);
+        CRC32 checksum = new CRC32 ();
+        checksum.update (Files.readAllBytes (Paths.get (path)));
+        neuralEvaluate = network;
+        neuralWeights = new File (path).getAbsolutePath ();
+        int fileChecksum = (int) checksum.getValue ();
+        evaluator = fileChecksum != HANDCRAFTED ? fileChecksum : HANDCRAFTED + 1; // a file whose checksum happens to be 0 must still differ from Evaluate.
+    }
+    /**
+     * Returns a number telling which evaluation minimax uses: 0 for Evaluate and the CRC32 checksum of the weight file for a neural network.
+     * Search results stored with one evaluation must not be used with another.
+     *
+     * @return	int		The evaluator.
+     */
+    public int getEvaluator() {
+        return evaluator;
+    }
+    /**
+     * Returns the weight file of the neural network the game uses, so that other processes searching for it can load the same network.
+     *
+     * @return	String	The absolute path of the weight file, or null if the game uses the handcrafted evaluation.
+     */
+    String getNeuralWeights() {
+        return neuralWeights;
+    }
+    /**
+     * Returns the live list of neighbours, the empty squares next to placed markers that the computer is allowed to play on.
+     *
+     * @return	ArrayList<Move>	The neighbours of the current position.
+     */
+    ArrayList<Move> getAvailableNeighbours() {
+        return availableNeighbours;
+    }
+    /**
+     * Returns the number of squares on the board that are still empty.
+     *
+     * @return	int		The number of empty squares.
+     */
+    int getEmptySquares() {
+        return emptySquares;
+    }
+    /**
+     * Returns the tracker of squares where a player would make five, kept up to date by addStone and removeStone.
+     *
+     * @return	ThreatTracker	The tracker.
+     */
+    ThreatTracker getThreats() {
+        return threats;
+    }
+    /**
+     * Changes how many moves ahead minimax looks. Used by SearchRegression to search its positions at fixed depths.
+     *
+     * @param	depth	The new search depth, must be at least 1.
+     * @return	void
+     */
+    void setSearchDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException ("Search depth must be at least 1!");
+        }
+        searchDepth = depth;
+        variations = new int[depth + 1][depth + 1];
+        variationLengths = new int[depth + 1];
+    }
+
+    int getSearchDepth() {
+        return searchDepth;
+    }
+    /**
+     * Returns the number of positions minimax has visited since resetNodeCount was last called. Unlike time it is the same on every machine, so it is used to measure the cost of the search.
+     *
+     * @return	long	The number of visited positions.
+     */
+    long getNodeCount() {
+        return nodeCount;
+    }
+
+    void resetNodeCount() {
+        nodeCount = 0;
+    }
+    /**
+     * Returns a 64-bit hash of the current position that is the same for every turned or mirrored version of it, meant as a key for search caches.
+     *
+     * @return	long	The symmetry-independent hash of the board.
+     */
+    long getCanonicalHash() {
+        return symmetry.canonicalHash (board);
+    }
+    /**
+     * Returns the 64-bit hash of the current position. It is kept up to date by addStone and removeStone so reading it is free.
+     *
+     * @return	long	The hash of the board.
+     */
+    long getHash() {
+        return hash;
+    }
+    /**
+     * Returns the key used for the position together with whose turn it is.
+     *
+     * @param	isComputersTurn	Whether the computer is to move.
+     * @return	long			The key.
+     */
+    private long positionKey(boolean isComputersTurn) {
+        return positionKey (hash, isComputersTurn);
+    }
+    /**
+     * Returns the key of a position given its hash and whose turn it is. ProofSolver keys its tables the same way so that its results can be handed to the game.
+     *
+     * @param	hash			The hash of the board.
+     * @param	isComputersTurn	Whether the computer is to move.
+     * @return	long			The key.
+     */
+    static long positionKey(long hash, boolean isComputersTurn) {
+        return isComputersTurn ? ~hash : hash;
+    }
+    /**
+     * Stores a result proven by ProofSolver for the current position so that minimax uses it as an exact score instead of searching the position again.
+     * A proven win or loss is scored just inside the values of an immediate win or loss and a draw is scored as zero. The results are kept in a table of
+     * PROVEN_CAPACITY entries, the result of the current position is given the most weight so that it is only replaced by another such result.
+     *
+     * @param	isComputersTurn	Whether the computer is to move in the position.
+     * @param	result			ProofSolver.WIN, ProofSolver.LOSS or ProofSolver.DRAW seen from the computer.
+     * @return	void
+     */
+    void addProvenResult(boolean isComputersTurn, int result) {
+        addProvenResult (positionKey (isComputersTurn), result, Integer.MAX_VALUE);
+    }
+    /**
+     * Stores a result proven by ProofSolver for any position, given by its key. ProofSolver uses it for the positions it proved while solving another one,
+     * so that minimax finds them when it gets there. When the table is full the results that took less work to prove are replaced first.
+     *
+     * @param	key		The key of the position, see positionKey.
+     * @param	result	ProofSolver.WIN, ProofSolver.LOSS or ProofSolver.DRAW seen from the computer.
+     * @param	work	How many nodes ProofSolver searched to prove the position.
+     * @return	void
+     */
+    void addProvenResult(long key, int result, int work) {
+        provenTable ().store (key, provenScore (result), ProvenTable.NO_MOVE, work);
+    }
+    /**
+     * Stores the move ProofSolver found to win the current position for the computer, so that the computer plays it instead of searching.
+     *
+     * @param	move	The winning move.
+     * @return	void
+     */
+    void addProvenWin(Move move) {
+        provenTable ().store (positionKey (true), provenScore (ProofSolver.WIN), move.getX () * size + move.getY (), Integer.MAX_VALUE);
+    }
+    // the table is only made once ProofSolver proves something, most games never need it.
+    private ProvenTable provenTable() {
+        if (provenResults == null) {
+            provenResults = new ProvenTable (PROVEN_CAPACITY);
+        }
+        return provenResults;
+    }
+
+    private int provenScore(int result) {
+        if (result == ProofSolver.WIN) {
+            return POSITIVE_INFINITY - size * size;
+        } else if (result == ProofSolver.LOSS) {
+            return NEGATIVE_INFINITY + size * size;
+        } else if (result == ProofSolver.DRAW) {
+            return NONE;
+        }
+        throw new IllegalArgumentException ("Only proven results can be stored!");
+    }
+    /**
+     * Returns a move that ProofSolver has proven to win for the computer in the current position: the move it found when it solved this position, or otherwise
+     * a move to a position it proved to be won on the way. Every empty square is tried since a proof may start with a move that is not next to a marker.
+     *
+     * @return	Move	The winning move, or null if none is known.
+     */
+    private Move findProvenWin() {
+        if (provenResults == null) {
+            return null;
+        }
+        int known = provenResults.move (positionKey (true));
+        if (known != ProvenTable.NO_MOVE && board[known / size][known % size] == NONE) {
+            return new Move (known / size, known % size, provenScore (ProofSolver.WIN));
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (board[i][j] == NONE) {
+                    int score = provenResults.score (positionKey (hash ^ symmetry.key (i, j, true), false));
+                    if (score != ProvenTable.NOT_FOUND && score >= POSITIVE_INFINITY - size * size) {
+                        return new Move (i, j, score);
+                    }
+                }
+            }
+        }
+        return null;
     }
     /**
      * This method receives x and y coordinates as int for the board where a player wishes to place its marker and also receives a boolean telling the method whether it's the player or the computer.
@@ -80,6 +348,12 @@ public class Gomoku {
         availableNeighbours.remove (place);
         emptySquares--;
         board[x][y] = isComputer ? 'O' : 'X';
+        hash ^= symmetry.key (x, y, isComputer);
+        runs.addStone (x, y);
+        threats.update (x, y);
+        if (neuralEvaluate != null) {
+            neuralEvaluate.addStone (x, y, isComputer);
+        }
         produceNeighbours (place);
         return true;
     }
@@ -199,8 +473,16 @@ public class Gomoku {
      */
     public void removeStone(int x, int y) {
         if (isIndexAcceptable (x, y)) {
+            if (board[x][y] != 0) {
+                hash ^= symmetry.key (x, y, board[x][y] == 'O');
+                runs.removeStone (x, y);
+                if (neuralEvaluate != null) {
+                    neuralEvaluate.removeStone (x, y, board[x][y] == 'O');
+                }
+            }
             board[x][y] = 0;
             emptySquares++;
+            threats.update (x, y);
         }
     }
     /**
@@ -235,223 +517,264 @@ public class Gomoku {
 
     }//printBoard
     /**
-     * The method takes x and y coordinates as well as an int telling the method how many markers in a row leads to a win and determines whether the placement leads to a win for the player who placed it. 
+     * This method receives the previous move made by the human player and sends it on to the minimax-algorithm to determine the computer's next move and then returns the chosen move.
      *
-     * @param	x				The X-coordinate for the placement choice.
-     * @param	y				The Y-coordinate for the placement choice.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @return	int				An int is returned, if no win is found it will be zero, anything greater than zero is a win.
+     * @param	x		The X-coordinate that the human player played before computer turn.
+     * @param	y		The Y-coordinate that the human player played before computer turn.
+     * @return	Move	After the computer has made its choice a Move-object with the choice of placement is returned.
      * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
      */
-    private int checkWin(int x, int y, int targetValue) {
-        char stone;
-        if (board[x][y] == 'X') {
-            stone = 'X';
-        } else if (board[x][y] == 'O') {
-            stone = 'O';
-        } else {
-            throw new IllegalArgumentException ("Invalid square, cannot evaluate win!");
-        }
-        int rowIndex;
-        if (x >= targetValue) {
-            rowIndex = x - targetValue;
-        } else {
-            rowIndex = 0;
-        }
-        int rowVal = checkRow (rowIndex, y, targetValue, stone);
-        if (rowVal > 0) {
-            return rowVal;
-        }
-        int columnIndex;
-        if (y >= targetValue) {
-            columnIndex = y - targetValue;
+    public Move addComputerStone(int x, int y) {
+
+        Move computerMove;
+        if (monteCarlo != null) {
+            computerMove = monteCarlo.findBestMove (x, y);
         } else {
-            columnIndex = 0;
-        }
-        int columnVal = checkColumn (x, columnIndex, targetValue, stone);
-        if (columnVal > 0) {
-            return columnVal;
-        }
-        int diagVal = checkDiagonal (x, y, targetValue, stone);
-        if (diagVal > 0) {
-            return diagVal;
+            // a win proven by ProofSolver is played as it is, otherwise a result stored by an earlier search, possibly before a restart, is used if it was searched at least as deep.
+            computerMove = findProvenWin ();
+            if (computerMove == null) {
+                computerMove = positionStore != null ? positionStore.lookup (positionKey (true), searchDepth) : null;
+            }
+            if (computerMove == null || !isIndexAcceptable (computerMove.getX (), computerMove.getY ()) || board[computerMove.getX ()][computerMove.getY ()] != NONE) {
+                computerMove = distributedSearch != null ? distributedSearch.searchBestMove (this, x, y) : searchBestMove (x, y);
+                if (positionStore != null) {
+                    positionStore.store (positionKey (true), searchDepth, computerMove);
+                }
+            }
         }
-
-        return ZERO;
+        addStone (computerMove.getX (), computerMove.getY (), true);
+        System.out.println ("Computers best move is " + computerMove.getX () + " " + computerMove.getY () + " value: " + computerMove.value ());
+        return computerMove;
     }
     /**
-     * This method is called by checkWin to specifically check the row that the marker is placed on whether a win can be found horizontally. 
+     * Analyses the current position without placing a marker and returns the best moves for the computer, up to count of them, best first.
+     * All lines come from one search over the root moves: each move is searched with alpha set to the value of the count-th best line so far,
+     * so every returned value is exact while the moves that cannot make the list are cut off as in a normal search. Moves that are mirror images
+     * of a move already in the list are not returned since they are the same line.
      *
-     * @param	rowZero			The X-coordinate to start the check from.
-     * @param	y				The Y-coordinate for the placement choice.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @param 	stone			Which marker type that is being looked at.
-     * @return	int				An int is returned, if no win is found it will be zero, if win is found the value is set to targetValue.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @param	x					The X-coordinate that the human player played before computer turn.
+     * @param	y					The Y-coordinate that the human player played before computer turn.
+     * @param	count				How many lines to return.
+     * @return	ArrayList<Variation>	The best lines with their values and principal variations, empty if the human's move already made five since the game is then over.
      */
-    private int checkRow(int rowZero, int y, int targetValue, char stone) {
-        int numbersInARow = ZERO;
-        for (int i = rowZero; i < size; i++) {
-            if (board[i][y] == stone) {
-                numbersInARow++;
-            } else {
-                numbersInARow = ZERO;
+    public ArrayList<Variation> analyse(int x, int y, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException ("At least one line must be asked for!");
+        }
+        ArrayList<Variation> lines = new ArrayList<Variation> ();
+        if (runs.isFive (x, y)) {
+            return lines;
+        }
+        // every move is analysed, also when the reply is forced, so that the other lines can be shown as well.
+        for (Move place : symmetry.uniqueMoves (board, availableNeighbours)) {
+            int alpha = lines.size () < count ? NEGATIVE_INFINITY : lines.get (count - 1).value ();
+            int value = searchRootMove (place.getX (), place.getY (), alpha);
+            if (value <= alpha && lines.size () >= count) {
+                continue;
             }
-            if (numbersInARow == targetValue) {
-                return targetValue;
+            ArrayList<Move> moves = new ArrayList<Move> ();
+            moves.add (new Move (place.getX (), place.getY ()));
+            for (int i = 0; i < variationLengths[1]; i++) {
+                moves.add (new Move (variations[1][i] / size, variations[1][i] % size));
+            }
+            int index = 0;
+            while (index < lines.size () && lines.get (index).value () >= value) {
+                index++;
+            }
+            lines.add (index, new Variation (value, moves));
+            if (lines.size () > count) {
+                lines.remove (count);
             }
         }
-        return ZERO;
+        return lines;
     }
     /**
-     * This method is called by checkWin to specifically check the column that the marker is placed on whether a win can be found vertically. 
+     * Lets the computer look up and save its search results in a store that can be kept between restarts. Passing null turns the store off.
+     * The store must have been made for the evaluation the game uses, so neural weights have to be loaded first.
      *
-     * @param	x				The X-coordinate for the placement choice.
-     * @param	columnTop		The Y-coordinate to start the check from.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @param 	stone			Which marker type that is being looked at.
-     * @return	int				An int is returned, if no win is found it will be zero, if win is found the value is set to targetValue.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @param	store	The store.
+     * @return	void
+     * @throws	IllegalArgumentException	If the store holds results of another evaluation.
      */
-    private int checkColumn(int x, int columnTop, int targetValue, char stone) {
-        int fiveInARow = ZERO;
-        for (int i = columnTop; i < size; i++) {
-            if (board[x][i] == stone) {
-                fiveInARow++;
-            } else {
-                fiveInARow = ZERO;
-            }
-            if (fiveInARow == targetValue) {
-                return targetValue;
-            }
+    public void usePositionStore(PositionStore store) {
+        if (store != null && store.getEvaluator () != evaluator) {
+            throw new IllegalArgumentException ("The position store holds results of another evaluation!");
         }
-        return ZERO;
+        positionStore = store;
     }
     /**
-     * This method is called by checkWin to specifically check the diagonals that run through the marker to find a diagonal win.
+     * Lets the computer split its minimax search over worker processes for the rest of the game. Passing null makes it search in this process again.
      *
-     * @param	x				The X-coordinate for the placement choice.
-     * @param	y				The Y-coordinate for the placement choice.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @param 	stone			Which marker type that is being looked at.
-     * @return	int				An int is returned, if no win is found it will be zero, if win is found the value is set to targetValue.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @param	search	The coordinator connected to the workers.
+     * @return	void
      */
-    private int checkDiagonal(int x, int y, int targetValue, char stone) {
-        final int LEFT_EDGE = 0, TOP_EDGE = 0, RIGHT_EDGE = size - 1;
-        int diagX, diagY;
-        if (x == LEFT_EDGE || y == TOP_EDGE) {
-            diagX = x;
-            diagY = y;
-        } else {
-            diagX = x;
-            diagY = y;
-            do {
-                diagX -= 1;
-                diagY -= 1;
-            } while (diagX > LEFT_EDGE && diagY > TOP_EDGE);
-        }
-        int diagLR = checkDiagLeftRight (diagX, diagY, targetValue, stone);
-        if (diagLR > ZERO) {
-            return diagLR;
-        }
-        if (x == RIGHT_EDGE || y == TOP_EDGE) {
-            diagX = x;
-            diagY = y;
-        } else {
-            diagX = x;
-            diagY = y;
-            do {
-                diagX += 1;
-                diagY -= 1;
-            } while (diagX < RIGHT_EDGE && diagY > TOP_EDGE);
-        }
-        int diagRL = checkDiagRightLeft (diagX, diagY, targetValue, stone);
-        if (diagRL > ZERO) {
-            return diagRL;
-        }
-        return ZERO;
+    public void useDistributedSearch(DistributedSearch search) {
+        distributedSearch = search;
     }
     /**
-     * This method is called by checkDiagonal to specifically check the diagonal going from top-left to bottom-right that runs through the marker to find a diagonal win.
+     * Returns the moves that minimax tries at the root of its search: the neighbours without moves that are mirror images of each other,
+     * cut down to the winning move or the blocking moves when the position forces the computer's reply.
      *
-     * @param	diagX			The leftmost possible coordinate for the diagonal.
-     * @param	diagY			The topmost possible coordinate for the diagonal.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @param 	stone			Which marker type that is being looked at.
-     * @return	int				An int is returned, if no win is found it will be zero, if win is found the value is set to targetValue.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @return	ArrayList<Move>	The root moves in the order minimax would try them.
      */
-    private int checkDiagLeftRight(int diagX, int diagY, int targetValue, char stone) {
-        final int RIGHT_EDGE = size - 1, BOTTOM_EDGE = size - 1;
-        int fiveInARow = ZERO;
-        while (diagX <= RIGHT_EDGE && diagY <= BOTTOM_EDGE) {
-            if (board[diagX][diagY] == stone) {
-                fiveInARow++;
-            } else {
-                fiveInARow = ZERO;
-            }
-            if (fiveInARow == targetValue) {
-                return targetValue;
+    ArrayList<Move> getRootMoves() {
+        return threats.restrict (symmetry.uniqueMoves (board, availableNeighbours), true);
+    }
+    /**
+     * Searches a single root move for the computer: the move is placed, the human's replies are searched to the remaining depth and the move is taken back.
+     * Moves that are not better than alpha may be cut off early, their value is then only an upper bound.
+     *
+     * @param	x		The X-coordinate of the computer's move.
+     * @param	y		The Y-coordinate of the computer's move.
+     * @param	alpha	The value of the best root move found so far.
+     * @return	int		The value of the move.
+     */
+    int searchRootMove(int x, int y, int alpha) {
+        ArrayList<Move> neighbours = new ArrayList<Move> (availableNeighbours);
+        addStone (x, y, true);
+        int value = miniMax (x, y, searchDepth - 1, false, alpha, POSITIVE_INFINITY).value ();
+        removeStone (x, y);
+        availableNeighbours = neighbours;
+        return value;
+    }
+    /**
+     * Runs minimax from the current position and returns the computer's best move without placing it.
+     *
+     * @param	x		The X-coordinate that the human player played before computer turn.
+     * @param	y		The Y-coordinate that the human player played before computer turn.
+     * @return	Move	The best move with its value.
+     */
+    Move searchBestMove(int x, int y) {
+        return miniMax (x, y, searchDepth, true, NEGATIVE_INFINITY, POSITIVE_INFINITY);
+    }
+    /**
+     * Searches the current position one depth at a time, starting at depth 1, and returns the computer's best move from the deepest search that finished before the deadline.
+     * A search that is still running at the deadline is stopped and thrown away. A new depth is not started if it is not expected to finish in time,
+     * or if the last one already found a win or a loss. Depth 1 is always finished so that a move is returned even when the time is already up.
+     * The position store is used as in addComputerStone, and a win proven by ProofSolver is played without searching. The marker is not placed and the search depth of the game is left as it was.
+     *
+     * @param	x			The X-coordinate that the human player played before computer turn.
+     * @param	y			The Y-coordinate that the human player played before computer turn.
+     * @param	deadline	The time in milliseconds, as given by System.currentTimeMillis, when the search must stop.
+     * @param	maxDepth	The deepest search that is tried.
+     * @return	Move		The best move with its value, or a move at -1,-1 if the board has no neighbours to play.
+     */
+    Move searchUntil(int x, int y, long deadline, int maxDepth) {
+        return searchUntil (x, y, deadline, maxDepth, null);
+    }
+    /**
+     * Works like the method above but also reports every finished depth to progress, and stops early when stopSearch is called from another thread.
+     *
+     * @param	x			The X-coordinate that the human player played before computer turn.
+     * @param	y			The Y-coordinate that the human player played before computer turn.
+     * @param	deadline	The time in milliseconds, as given by System.currentTimeMillis, when the search must stop.
+     * @param	maxDepth	The deepest search that is tried.
+     * @param	progress	Receives a report after every finished depth, or null.
+     * @return	Move		The best move with its value, or a move at -1,-1 if the board has no neighbours to play.
+     */
+    Move searchUntil(int x, int y, long deadline, int maxDepth, Consumer<SearchInfo> progress) {
+        final int previousDepth = searchDepth;
+        final long searchStart = System.currentTimeMillis ();
+        final long nodesBefore = nodeCount;
+        isStopRequested = false;
+        Move best = findProvenWin ();
+        if (best != null) {
+            return best;
+        }
+        try {
+            for (int depth = 1; depth <= Math.min (maxDepth, emptySquares) && !(depth > 1 && isStopRequested); depth++) {
+                long startTime = System.currentTimeMillis ();
+                setSearchDepth (depth);
+                Move found = positionStore != null ? positionStore.lookup (positionKey (true), depth) : null;
+                if (found == null || !isIndexAcceptable (found.getX (), found.getY ()) || board[found.getX ()][found.getY ()] != NONE) {
+                    this.deadline = depth == 1 ? NONE : deadline;
+                    isTimeUp = false;
+                    found = searchBestMove (x, y);
+                    if (isTimeUp) {
+                        break;
+                    }
+                    if (positionStore != null) {
+                        positionStore.store (positionKey (true), depth, found);
+                    }
+                }
+                best = found;
+                long endTime = System.currentTimeMillis ();
+                if (progress != null) {
+                    progress.accept (new SearchInfo (depth, principalVariation (found), nodeCount - nodesBefore, endTime - searchStart));
+                }
+                boolean isDecided = found.value () >= POSITIVE_INFINITY - size * size || found.value () <= NEGATIVE_INFINITY + size * size;
+                if (isDecided || endTime + (endTime - startTime) * ITERATION_GROWTH > deadline) {
+                    break;
+                }
             }
-            diagX++;
-            diagY++;
+        } finally {
+            this.deadline = NONE;
+            isTimeUp = false;
+            setSearchDepth (previousDepth);
         }
-        return ZERO;
+        return best != null ? best : new Move (-1, -1, NONE);
     }
     /**
-     * This method is called by checkDiagonal to specifically check the diagonal going from top-right to bottom-left that runs through the marker to find a diagonal win.
+     * Starts a timed search of the current position on another thread and returns at once. The search reports its progress to the subscribers of the returned stream
+     * and can be stopped through it. The game must not be changed until the result of the stream is complete.
      *
-     * @param	diagX			The rightmost possible coordinate for the diagonal.
-     * @param	diagY			The topmost possible coordinate for the diagonal.
-     * @param	targetValue		An int telling the method how many markers of the same type in a row is needed for a win.
-     * @param 	stone			Which marker type that is being looked at.
-     * @return	int				An int is returned, if no win is found it will be zero, if win is found the value is set to targetValue.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @param	x				The X-coordinate that the human player played before computer turn.
+     * @param	y				The Y-coordinate that the human player played before computer turn.
+     * @param	timeLimit		How many milliseconds the search may use, 0 for no limit.
+     * @param	maxDepth		The deepest search that is tried.
+     * @return	SearchStream	The stream of progress reports and the final move.
      */
-    private int checkDiagRightLeft(int diagX, int diagY, int targetValue, char stone) {
-        final int LEFT_EDGE = 0, BOTTOM_EDGE = size - 1;
-        int fiveInARow = ZERO;
-        while (diagX >= LEFT_EDGE && diagY <= BOTTOM_EDGE) {
-            if (board[diagX][diagY] == stone) {
-                fiveInARow++;
-            } else {
-                fiveInARow = ZERO;
-            }
-            if (fiveInARow == targetValue) {
-                return targetValue;
-            }
-            diagX--;
-            diagY++;
+    public SearchStream searchInBackground(int x, int y, long timeLimit, int maxDepth) {
+        if (timeLimit < 0 || maxDepth < 1) {
+            throw new IllegalArgumentException ("Invalid search settings!");
         }
-        return ZERO;
+        long deadline = timeLimit == NONE ? Long.MAX_VALUE : System.currentTimeMillis () + timeLimit;
+        return new SearchStream (this, x, y, deadline, maxDepth);
     }
     /**
-     * This method receives the previous move made by the human player and sends it on to the minimax-algorithm to determine the computer's next move and then returns the chosen move.
+     * Asks a timed search that runs on another thread to stop. The depth that is being searched is thrown away.
      *
-     * @param	x		The X-coordinate that the human player played before computer turn.
-     * @param	y		The Y-coordinate that the human player played before computer turn.
-     * @return	Move	After the computer has made its choice a Move-object with the choice of placement is returned.
-     * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
+     * @return	void
      */
-    public Move addComputerStone(int x, int y) {
-
-        Move computerMove = miniMax (x, y, DEPTH, true, NEGATIVE_INFINITY, POSITIVE_INFINITY);
-        addStone (computerMove.getX (), computerMove.getY (), true);
-        System.out.println ("Computers best move is " + computerMove.getX () + " " + computerMove.getY () + " value: " + computerMove.value ());
-        return computerMove;
+    void stopSearch() {
+        isStopRequested = true;
+    }
+    /**
+     * Returns the line a search found from the root: the best move followed by the best line below it. A move taken from the position store has no line below it.
+     */
+    private Variation principalVariation(Move best) {
+        ArrayList<Move> moves = new ArrayList<Move> ();
+        moves.add (new Move (best.getX (), best.getY ()));
+        if (variationLengths[0] > 0 && variations[0][0] == best.getX () * size + best.getY ()) {
+            for (int i = 1; i < variationLengths[0]; i++) {
+                moves.add (new Move (variations[0][i] / size, variations[0][i] % size));
+            }
+        }
+        return new Variation (best.value (), moves);
     }
     /**
-     * Two following methods are just public re-wraps of the checkWin call. Perhaps only one of them would be necessary or checkWin could be made public. 
+     * Two following methods are just public re-wraps of the win check. Perhaps only one of them would be necessary. The line lengths are kept up to date
+     * when markers are placed, so the check takes the same time on any board size.
      * 	
      * @author 	Christian Neij and Christoffer hman (or Oehman in the english alphabet)
      */
     public boolean checkHumanWin(int x, int y) {
-        return checkWin (x, y, WINNING_NUMBER) == WINNING_NUMBER;
+        return runs.isFive (x, y);
     }
 
     public boolean checkComputerWin(int x, int y) {
-        return checkWin (x, y, WINNING_NUMBER) == WINNING_NUMBER;
+        return runs.isFive (x, y);
+    }
+    /**
+     * Package-private version of the win check for the searches, tells whether the marker on x,y is part of five in a row. It reads the board itself
+     * so that it also works for searches that place markers on the board directly instead of calling addStone.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @return	boolean		True if the marker completes a win.
+     */
+    boolean isWinningStone(int x, int y) {
+        return RunTracker.isFive (board, x, y);
     }
 
 
@@ -476,30 +799,46 @@ public class Gomoku {
         if (depth < 0) {
             throw new IllegalArgumentException ();
         }
-        final int movesBeforeWinIsPossible = 9;
-        if (isComputersTurn && (size * size) - emptySquares >= movesBeforeWinIsPossible) {
-            if (checkWin (x, y, WINNING_NUMBER) == WINNING_NUMBER) {
-                return new Move (x, y, NEGATIVE_INFINITY + ((size * size) - emptySquares));
-            }
-        } else if ((size * size) - emptySquares >= movesBeforeWinIsPossible) {
-            if (checkWin (x, y, WINNING_NUMBER) == WINNING_NUMBER) {
-                return new Move (x, y, POSITIVE_INFINITY - ((size * size) - emptySquares));
-            }
+        nodeCount++;
+        // a timed search stops as soon as its deadline has passed or it is asked to stop, the values returned after that are not used.
+        if (deadline != NONE && (nodeCount & CLOCK_INTERVAL) == 0 && (isStopRequested || System.currentTimeMillis () >= deadline)) {
+            isTimeUp = true;
+        }
+        if (isTimeUp) {
+            return new Move (x, y, NONE);
+        }
+        final int ply = searchDepth - depth;
+        variationLengths[ply] = NONE;
+        if (runs.isFive (x, y)) {
+            return new Move (x, y, isComputersTurn ? NEGATIVE_INFINITY + ((size * size) - emptySquares) : POSITIVE_INFINITY - ((size * size) - emptySquares));
         }
 
         if (emptySquares == NONE) {
             return new Move (x, y, NONE);
         }
 
+        // positions proven by ProofSolver have an exact score. The root is still searched since a move has to be returned from it.
+        if (provenResults != null && depth < searchDepth) {
+            int proven = provenResults.score (positionKey (isComputersTurn));
+            if (proven != ProvenTable.NOT_FOUND) {
+                return new Move (x, y, proven);
+            }
+        }
+
         if (depth == NONE) {
-            return new Move (x, y, evaluate.getStaticEvaluation (board));
+            int value = neuralEvaluate != null ? neuralEvaluate.getStaticEvaluation () : evaluate.getStaticEvaluation (board);
+            return new Move (x, y, value);
         }
 
 
         int bestVal = NEGATIVE_INFINITY;
         int bestX = -1;
         int bestY = -1;
-        ArrayList<Move> placesToIterateOver = new ArrayList<Move> (availableNeighbours);
+        ArrayList<Move> neighbours = new ArrayList<Move> (availableNeighbours);
+        // at the root, moves that are mirror images of each other in a symmetric position give the same value so only one of them is searched.
+        ArrayList<Move> placesToIterateOver = depth == searchDepth ? symmetry.uniqueMoves (board, neighbours) : neighbours;
+        // if a player can make five, only the winning move or the moves blocking it are worth searching.
+        placesToIterateOver = threats.restrict (placesToIterateOver, isComputersTurn);
         // if computers turn: maximize
         if (isComputersTurn) {
             for (Move place : placesToIterateOver) {
@@ -510,7 +849,7 @@ public class Gomoku {
                     addStone (x1, y1, true);
                     int value = miniMax (x1, y1, depth - 1, false, alpha, beta).value ();
                     removeStone (x1, y1);
-                    availableNeighbours = new ArrayList<Move> (placesToIterateOver);
+                    availableNeighbours = new ArrayList<Move> (neighbours);
                     // if the childNode value is higher than the current alpha whilst traversing the tree. the alpha is updated
                     // as well as the bestMove.
                     if (value > alpha) {
@@ -518,6 +857,7 @@ public class Gomoku {
                         bestX = x1;
                         bestY = y1;
                         bestVal = value;
+                        updateVariation (ply, x1, y1);
                     }
 
                     if (alpha >= beta) {
@@ -539,13 +879,14 @@ public class Gomoku {
                     addStone (x1, y1, false);
                     int value = miniMax (x1, y1, depth - 1, true, alpha, beta).value ();
                     removeStone (x1, y1);
-                    availableNeighbours = new ArrayList<Move> (placesToIterateOver);
+                    availableNeighbours = new ArrayList<Move> (neighbours);
 
                     if (value < beta) {
                         beta = value;
                         bestX = x1;
                         bestY = y1;
                         bestVal = value;
+                        updateVariation (ply, x1, y1);
                     }//if
 
 
@@ -557,6 +898,20 @@ public class Gomoku {
         }
         return new Move (bestX, bestY, bestVal);
     } // minMax
+    /**
+     * Records a new best move at a ply of the search. The best line of the ply becomes the move followed by the best line found below it.
+     *
+     * @param	ply		How many moves below the root the move is made.
+     * @param	x		The X-coordinate of the move.
+     * @param	y		The Y-coordinate of the move.
+     * @return	void
+     */
+    private void updateVariation(int ply, int x, int y) {
+        int childLength = variationLengths[ply + 1];
+        variations[ply][0] = x * size + y;
+        System.arraycopy (variations[ply + 1], 0, variations[ply], 1, childLength);
+        variationLengths[ply] = childLength + 1;
+    }
 
 
 }// Gomoku
@@ -1,5 +1,6 @@
 
 
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -9,12 +10,22 @@ import java.util.Scanner;
  */
 public class Main {
 	private final int BOARD_SIZE = 8;
+	private static final String STORE_FILE = "gomoku.store"; // search results are kept here between runs.
 	private final Gomoku game = new Gomoku (BOARD_SIZE);
 	boolean isRunning = true;
 
 
 	public static void main(String[] args) {
 		Main main = new Main ();
+		if (args.length > 0) { // an optional weight file from NeuralTrainer replaces the handcrafted evaluation.
+			try {
+				main.game.loadNeuralWeights (args[0]);
+			} catch (IOException e) {
+				System.out.println ("Could not load weights, using the normal evaluation: " + e.getMessage ());
+			}
+		}
+		// opened after the weights so that a snapshot searched with another evaluation is ignored.
+		main.game.usePositionStore (PositionStore.open (STORE_FILE, main.BOARD_SIZE, main.game.getEvaluator ()));
 		main.run ();
 	}
 
@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The MonteCarlo class is an alternative to the minimax-algorithm for the computer player. Instead of looking at every neighbour to a fixed depth it grows a search tree
+ * by playing random games (playouts) from the current position and keeps choosing the moves that win most often, while still trying less explored moves (UCT).
+ * Several threads work on the same tree at once. A thread that walks through a node adds a "virtual loss" to it so that the other threads prefer other paths until the playout is done.
+ * The tree is kept between moves so the part of it that is still relevant after the human's reply can be reused, and its size is limited by a maximum number of nodes.
+ */
+public class MonteCarlo {
+    private static final long DEFAULT_TIME_LIMIT = 2000; // milliseconds per move.
+    private static final int DEFAULT_MAX_NODES = 1000000;
+    private static final int VIRTUAL_LOSS = 3;
+    private static final double EXPLORATION = 1.4;
+    private static final int WIN = 2, DRAW = 1, LOSS = 0; // results are counted in half points so that they can be stored as ints.
+    private static final int PERMILLE = 1000;
+    private final Gomoku game;
+    private final long timeLimit;
+    private final int maxNodes;
+    private final int threads;
+    private final AtomicInteger nodeCount = new AtomicInteger ();
+    private Node root;
+
+    /**
+     * Creates a Monte Carlo search for the game with a default time limit per move, a default limit on the size of the tree and one thread per processor.
+     *
+     * @param	game	The game that the computer is playing.
+     */
+    public MonteCarlo(Gomoku game) {
+        this (game, DEFAULT_TIME_LIMIT, DEFAULT_MAX_NODES, Runtime.getRuntime ().availableProcessors ());
+    }
+    /**
+     * Creates a Monte Carlo search for the game.
+     *
+     * @param	game		The game that the computer is playing.
+     * @param	timeLimit	How many milliseconds the search may use for each move.
+     * @param	maxNodes	The maximum number of nodes the tree may hold, when it is reached the tree stops growing but playouts continue.
+     * @param	threads		The number of threads running playouts in parallel.
+     */
+    public MonteCarlo(Gomoku game, long timeLimit, int maxNodes, int threads) {
+        if (timeLimit < 0 || maxNodes < 1 || threads < 1) {
+            throw new IllegalArgumentException ("Invalid Monte Carlo settings!");
+        }
+        this.game = game;
+        this.timeLimit = timeLimit;
+        this.maxNodes = maxNodes;
+        this.threads = threads;
+    }
+    /**
+     * Searches the current position of the game until the time limit is reached and returns the move that was visited most.
+     * The value of the returned move is how often the computer won the playouts through it, in per mille.
+     *
+     * @param	x		The X-coordinate that the human player played before computer turn.
+     * @param	y		The Y-coordinate that the human player played before computer turn.
+     * @return	Move	The chosen move. The stone is not placed on the board by this method.
+     */
+    public Move findBestMove(int x, int y) {
+        moveRoot (x, y);
+        final long deadline = System.currentTimeMillis () + timeLimit;
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread (() -> runPlayouts (deadline));
+            workers[i].start ();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join ();
+            } catch (InterruptedException e) {
+                Thread.currentThread ().interrupt ();
+            }
+        }
+
+        Node best = null;
+        Node[] children = root.children;
+        if (children != null) {
+            for (Node child : children) {
+                if (best == null || child.visits.get () > best.visits.get ()) {
+                    best = child;
+                }
+            }
+        }
+        if (best == null) { // no neighbours means an empty board, start in the centre like Main does.
+            return new Move (game.getSize () / 2, game.getSize () / 2);
+        }
+        int visits = best.visits.get ();
+        int value = visits == 0 ? 0 : (int) ((long) PERMILLE * best.score.get () / (WIN * visits));
+        reuseSubtree (best);
+        return new Move (best.x, best.y, value);
+    }
+    /**
+     * Makes the node for the human's last move the root of the tree if the tree already has it, otherwise the old tree is thrown away and a new root is created.
+     *
+     * @param	x		The X-coordinate that the human player played before computer turn.
+     * @param	y		The Y-coordinate that the human player played before computer turn.
+     * @return	void
+     */
+    private void moveRoot(int x, int y) {
+        int stones = game.getSize () * game.getSize () - game.getEmptySquares ();
+        if (root != null && root.stones + 1 == stones && root.children != null) {
+            for (Node child : root.children) {
+                if (child.x == x && child.y == y) {
+                    reuseSubtree (child);
+                    return;
+                }
+            }
+        }
+        root = new Node (x, y, false, stones);
+        nodeCount.set (1);
+    }
+    /**
+     * Makes the given node the new root so that the rest of the old tree can be garbage collected, and counts the nodes that are left.
+     *
+     * @param	node	The node that becomes the root.
+     * @return	void
+     */
+    private void reuseSubtree(Node node) {
+        root = node;
+        nodeCount.set (countNodes (node));
+    }
+
+    private int countNodes(Node node) {
+        int count = 1;
+        Node[] children = node.children;
+        if (children != null) {
+            for (Node child : children) {
+                count += countNodes (child);
+            }
+        }
+        return count;
+    }
+    /**
+     * The work done by every search thread. Each thread has its own copy of the board that it resets from the game before every playout.
+     *
+     * @param	deadline	The time in milliseconds when the thread must stop.
+     * @return	void
+     */
+    private void runPlayouts(long deadline) {
+        Gomoku scratch = new Gomoku (game.getSize ());
+        ArrayList<Node> path = new ArrayList<Node> ();
+        do {
+            scratch.copyFrom (game);
+            path.clear ();
+            playOnce (scratch, path);
+        } while (System.currentTimeMillis () < deadline);
+    }
+    /**
+     * One iteration of the search: walks down the tree (selection), adds the children of the leaf (expansion), plays a random game from there (playout)
+     * and finally adds the result to every node on the way (backpropagation).
+     *
+     * @param	scratch		A private board holding the root position.
+     * @param	path		An empty list that is filled with the visited nodes.
+     * @return	void
+     */
+    private void playOnce(Gomoku scratch, ArrayList<Node> path) {
+        Node node = root;
+        path.add (node);
+        while (!node.terminal) {
+            Node[] children = node.children;
+            if (children == null) {
+                if (node != root && node.visits.get () <= VIRTUAL_LOSS) {
+                    break; // a fresh leaf is played out once before it is expanded.
+                }
+                children = expand (node, scratch);
+                if (children == null) {
+                    break;
+                }
+            }
+            node = select (node, children);
+            node.visits.addAndGet (VIRTUAL_LOSS);
+            scratch.addStone (node.x, node.y, node.isComputer);
+            path.add (node);
+            if (node.children == null && scratch.isWinningStone (node.x, node.y)) {
+                node.terminal = true;
+            }
+        }
+
+        int computerResult;
+        if (node.terminal) {
+            computerResult = node.isComputer ? WIN : LOSS;
+        } else {
+            computerResult = playout (scratch, !node.isComputer);
+        }
+        for (Node visited : path) {
+            if (visited != root) {
+                visited.visits.addAndGet (1 - VIRTUAL_LOSS);
+            } else {
+                visited.visits.incrementAndGet ();
+            }
+            visited.score.addAndGet (visited.isComputer ? computerResult : WIN - computerResult);
+        }
+    }
+    /**
+     * Creates the children of a node, one for every neighbour in the node's position, unless the tree has reached its maximum size.
+     *
+     * @param	node		The node to expand.
+     * @param	scratch		The board holding the node's position.
+     * @return	Node[]		The children of the node or null if the node could not be expanded.
+     */
+    private Node[] expand(Node node, Gomoku scratch) {
+        synchronized (node) {
+            if (node.children == null) {
+                ArrayList<Move> neighbours = scratch.getAvailableNeighbours ();
+                if (neighbours.isEmpty () || nodeCount.get () + neighbours.size () > maxNodes) {
+                    return null;
+                }
+                Node[] children = new Node[neighbours.size ()];
+                for (int i = 0; i < children.length; i++) {
+                    Move place = neighbours.get (i);
+                    children[i] = new Node (place.getX (), place.getY (), !node.isComputer, node.stones + 1);
+                }
+                nodeCount.addAndGet (children.length);
+                node.children = children;
+            }
+            return node.children;
+        }
+    }
+    /**
+     * Chooses the child with the highest UCT value, the win rate for the player making the move plus a bonus for moves that have been visited less.
+     * Children that have never been visited are chosen first.
+     *
+     * @param	parent		The node that a child is chosen from.
+     * @param	children	The children of the node.
+     * @return	Node		The chosen child.
+     */
+    private Node select(Node parent, Node[] children) {
+        double logVisits = Math.log (Math.max (1, parent.visits.get ()));
+        Node best = children[0];
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child : children) {
+            int visits = child.visits.get ();
+            if (visits == 0) {
+                return child;
+            }
+            double value = child.score.get () / (double) (WIN * visits) + EXPLORATION * Math.sqrt (logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+    /**
+     * Plays random moves among the neighbours until someone wins or the board is full.
+     *
+     * @param	scratch			The board to play on.
+     * @param	isComputersTurn	Whether the computer makes the first move of the playout.
+     * @return	int				The result for the computer, WIN, DRAW or LOSS.
+     */
+    private int playout(Gomoku scratch, boolean isComputersTurn) {
+        ThreadLocalRandom random = ThreadLocalRandom.current ();
+        while (scratch.getEmptySquares () > 0) {
+            ArrayList<Move> neighbours = scratch.getThreats ().restrict (scratch.getAvailableNeighbours (), isComputersTurn);
+            if (neighbours.isEmpty ()) {
+                return DRAW;
+            }
+            Move place = neighbours.get (random.nextInt (neighbours.size ()));
+            scratch.addStone (place.getX (), place.getY (), isComputersTurn);
+            if (scratch.isWinningStone (place.getX (), place.getY ())) {
+                return isComputersTurn ? WIN : LOSS;
+            }
+            isComputersTurn = !isComputersTurn;
+        }
+        return DRAW;
+    }
+
+    /**
+     * A node in the search tree. It stands for the position after its move and keeps the statistics of that move seen from the player who made it.
+     */
+    private static final class Node {
+        private final int x, y;
+        private final boolean isComputer; // true if the computer placed the stone of this node.
+        private final int stones; // number of stones on the board after the move.
+        private final AtomicInteger visits = new AtomicInteger ();
+        private final AtomicInteger score = new AtomicInteger (); // half points for the player who made the move.
+        private volatile Node[] children;
+        private volatile boolean terminal;
+
+        private Node(int x, int y, boolean isComputer, int stones) {
+            this.x = x;
+            this.y = y;
+            this.isComputer = isComputer;
+            this.stones = stones;
+        }
+    }
+}// MonteCarlo
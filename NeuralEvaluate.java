@@ -0,0 +1,209 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The NeuralEvaluate class is an optional replacement for Evaluate that scores a board with a small neural network that only uses integer arithmetic.
+ * The inputs of the network are one per square and marker type. Since only a few inputs change when a marker is placed or removed, the first layer is not recalculated
+ * for every evaluation but kept in an "accumulator" that is updated by addStone and removeStone (the idea behind NNUE networks used by chess engines).
+ * The two layers after it are small and use 8-bit weights, so an evaluation costs about as much as one scan of the board by Evaluate.
+ * The weights are read from a binary file written by NeuralTrainer. As in Evaluate, the better the board is for the computer the higher the score.
+ */
+public class NeuralEvaluate {
+    static final int MAGIC = 0x474D4B4E; // "GMKN"
+    static final int VERSION = 1;
+    static final int HIDDEN = 32; // size of the first layer (the accumulator).
+    static final int HIDDEN2 = 16; // size of the second layer.
+    static final int ACTIVATION_SCALE = 127; // an activation of 1.0 is stored as 127.
+    static final int WEIGHT_SCALE = 64; // a weight of 1.0 in the second and third layer is stored as 64.
+    static final int OUTPUT_SCALE = 400; // the network's output of 1.0 is returned as 400.
+    private static final char MAX_STONE = 'O';
+    private static final char MIN_STONE = 'X';
+    private final int size;
+    private final short[] inputWeights; // [input * HIDDEN + neuron], scaled by ACTIVATION_SCALE.
+    private final short[] inputBiases;
+    private final byte[] hiddenWeights; // [neuron * HIDDEN2 + neuron2], scaled by WEIGHT_SCALE.
+    private final int[] hiddenBiases; // scaled by ACTIVATION_SCALE * WEIGHT_SCALE.
+    private final byte[] outputWeights;
+    private final int outputBias;
+    private final int[] accumulator = new int[HIDDEN];
+
+    NeuralEvaluate(int size, short[] inputWeights, short[] inputBiases, byte[] hiddenWeights, int[] hiddenBiases, byte[] outputWeights, int outputBias) {
+        this.size = size;
+        this.inputWeights = inputWeights;
+        this.inputBiases = inputBiases;
+        this.hiddenWeights = hiddenWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        clear ();
+    }
+    /**
+     * Reads a network from a weight file written by NeuralTrainer. The file must have been trained for the same board size.
+     *
+     * @param	path			The path of the weight file.
+     * @param	size			The width of the board the network will be used on.
+     * @return	NeuralEvaluate	The network, with an accumulator for an empty board.
+     * @throws	IOException		If the file cannot be read or is not a weight file for this board size.
+     */
+    public static NeuralEvaluate load(String path, int size) throws IOException {
+        try (DataInputStream in = new DataInputStream (new BufferedInputStream (new FileInputStream (path)))) {
+            if (in.readInt () != MAGIC || in.readInt () != VERSION) {
+                throw new IOException ("Not a weight file for this version: " + path);
+            }
+            if (in.readInt () != size || in.readInt () != HIDDEN || in.readInt () != HIDDEN2) {
+                throw new IOException ("The weight file was made for another board size or network: " + path);
+            }
+            short[] inputWeights = new short[inputs (size) * HIDDEN];
+            for (int i = 0; i < inputWeights.length; i++) {
+                inputWeights[i] = in.readShort ();
+            }
+            short[] inputBiases = new short[HIDDEN];
+            for (int i = 0; i < HIDDEN; i++) {
+                inputBiases[i] = in.readShort ();
+            }
+            byte[] hiddenWeights = new byte[HIDDEN * HIDDEN2];
+            in.readFully (hiddenWeights);
+            int[] hiddenBiases = new int[HIDDEN2];
+            for (int i = 0; i < HIDDEN2; i++) {
+                hiddenBiases[i] = in.readInt ();
+            }
+            byte[] outputWeights = new byte[HIDDEN2];
+            in.readFully (outputWeights);
+            int outputBias = in.readInt ();
+            return new NeuralEvaluate (size, inputWeights, inputBiases, hiddenWeights, hiddenBiases, outputWeights, outputBias);
+        }
+    }
+    /**
+     * Writes the network to a weight file that load can read.
+     *
+     * @param	path		The path of the weight file.
+     * @return	void
+     * @throws	IOException	If the file cannot be written.
+     */
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (path)))) {
+            out.writeInt (MAGIC);
+            out.writeInt (VERSION);
+            out.writeInt (size);
+            out.writeInt (HIDDEN);
+            out.writeInt (HIDDEN2);
+            for (short weight : inputWeights) {
+                out.writeShort (weight);
+            }
+            for (short bias : inputBiases) {
+                out.writeShort (bias);
+            }
+            out.write (hiddenWeights);
+            for (int bias : hiddenBiases) {
+                out.writeInt (bias);
+            }
+            out.write (outputWeights);
+            out.writeInt (outputBias);
+        }
+    }
+    /**
+     * The number of inputs of a network for a board, one per square for each of the two marker types.
+     *
+     * @param	size	The width of the board.
+     * @return	int		The number of inputs.
+     */
+    static int inputs(int size) {
+        return 2 * size * size;
+    }
+    /**
+     * The input that is active when a marker is on x,y.
+     *
+     * @param	size		The width of the board.
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @param	isComputer	Whether it is the computer's marker.
+     * @return	int			The index of the input.
+     */
+    static int inputIndex(int size, int x, int y, boolean isComputer) {
+        return (isComputer ? 0 : size * size) + x * size + y;
+    }
+    /**
+     * Resets the accumulator to an empty board.
+     *
+     * @return	void
+     */
+    public void clear() {
+        for (int i = 0; i < HIDDEN; i++) {
+            accumulator[i] = inputBiases[i];
+        }
+    }
+    /**
+     * Recalculates the accumulator from scratch for a board, used when the network is attached to a game that already has markers on it.
+     *
+     * @param	board	The board.
+     * @return	void
+     */
+    public void refresh(char[][] board) {
+        clear ();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (board[x][y] == MAX_STONE || board[x][y] == MIN_STONE) {
+                    addStone (x, y, board[x][y] == MAX_STONE);
+                }
+            }
+        }
+    }
+    /**
+     * Updates the accumulator for a marker that has been placed.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @param	isComputer	Whether it is the computer's marker.
+     * @return	void
+     */
+    public void addStone(int x, int y, boolean isComputer) {
+        int offset = inputIndex (size, x, y, isComputer) * HIDDEN;
+        for (int i = 0; i < HIDDEN; i++) {
+            accumulator[i] += inputWeights[offset + i];
+        }
+    }
+    /**
+     * Updates the accumulator for a marker that has been removed.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @param	isComputer	Whether it was the computer's marker.
+     * @return	void
+     */
+    public void removeStone(int x, int y, boolean isComputer) {
+        int offset = inputIndex (size, x, y, isComputer) * HIDDEN;
+        for (int i = 0; i < HIDDEN; i++) {
+            accumulator[i] -= inputWeights[offset + i];
+        }
+    }
+    /**
+     * Runs the layers after the accumulator and returns the value of the current board.
+     *
+     * @return	int		The value of the board, the higher the better for the computer.
+     */
+    public int getStaticEvaluation() {
+        final int FULL_SCALE = ACTIVATION_SCALE * WEIGHT_SCALE;
+        int[] hidden = new int[HIDDEN];
+        for (int i = 0; i < HIDDEN; i++) {
+            hidden[i] = clamp (accumulator[i]);
+        }
+        int output = outputBias;
+        for (int j = 0; j < HIDDEN2; j++) {
+            int sum = hiddenBiases[j];
+            for (int i = 0; i < HIDDEN; i++) {
+                sum += hidden[i] * hiddenWeights[i * HIDDEN2 + j];
+            }
+            output += clamp (sum / WEIGHT_SCALE) * outputWeights[j];
+        }
+        return (int) ((long) output * OUTPUT_SCALE / FULL_SCALE);
+    }
+
+    private static int clamp(int value) {
+        return Math.max (0, Math.min (ACTIVATION_SCALE, value));
+    }
+}// NeuralEvaluate
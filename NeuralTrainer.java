@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * The NeuralTrainer class makes the weight file used by NeuralEvaluate. It runs offline on the CPU: first it lets the computer play games against itself,
+ * then it fits a floating point copy of the network to predict the winner of every position of those games, and finally it rounds the weights to the integer format of NeuralEvaluate.
+ *
+ * Usage: java NeuralTrainer [board size] [number of games] [epochs] [weight file]
+ */
+public class NeuralTrainer {
+    private static final int DEFAULT_SIZE = 8;
+    private static final int DEFAULT_GAMES = 2000;
+    private static final int DEFAULT_EPOCHS = 10;
+    private static final String DEFAULT_FILE = "gomoku.nnue";
+    private static final double RANDOM_MOVE_CHANCE = 0.2; // how often self-play picks a random neighbour instead of the best looking one.
+    private static final double LEARNING_RATE = 0.01;
+    private static final double MAX_INPUT_WEIGHT = Short.MAX_VALUE / (double) NeuralEvaluate.ACTIVATION_SCALE;
+    private static final double MAX_WEIGHT = Byte.MAX_VALUE / (double) NeuralEvaluate.WEIGHT_SCALE;
+    private static final int H = NeuralEvaluate.HIDDEN, H2 = NeuralEvaluate.HIDDEN2;
+    private final int size;
+    private final Random random = new Random (1);
+    private final double[][] w1;
+    private final double[] b1 = new double[H];
+    private final double[][] w2 = new double[H][H2];
+    private final double[] b2 = new double[H2];
+    private final double[] w3 = new double[H2];
+    private double b3;
+    private final ArrayList<int[]> positions = new ArrayList<int[]> ();
+    private final ArrayList<Double> results = new ArrayList<Double> ();
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt (args[0]) : DEFAULT_SIZE;
+        int games = args.length > 1 ? Integer.parseInt (args[1]) : DEFAULT_GAMES;
+        int epochs = args.length > 2 ? Integer.parseInt (args[2]) : DEFAULT_EPOCHS;
+        String path = args.length > 3 ? args[3] : DEFAULT_FILE;
+
+        NeuralTrainer trainer = new NeuralTrainer (size);
+        for (int i = 0; i < games; i++) {
+            trainer.playGame ();
+        }
+        System.out.println ("Collected " + trainer.positions.size () + " positions from " + games + " games");
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            System.out.println ("Epoch " + epoch + " loss: " + trainer.train ());
+        }
+        trainer.quantize ().save (path);
+        System.out.println ("Weights written to " + path);
+    }
+
+    private NeuralTrainer(int size) {
+        this.size = size;
+        w1 = new double[NeuralEvaluate.inputs (size)][H];
+        for (double[] row : w1) {
+            for (int i = 0; i < H; i++) {
+                row[i] = random.nextGaussian () * 0.1;
+            }
+        }
+        for (int i = 0; i < H; i++) {
+            b1[i] = 0.5;
+            for (int j = 0; j < H2; j++) {
+                w2[i][j] = random.nextGaussian () / Math.sqrt (H);
+            }
+        }
+        for (int j = 0; j < H2; j++) {
+            w3[j] = random.nextGaussian () / Math.sqrt (H2);
+        }
+    }
+    /**
+     * Plays one game of the computer against itself, starting in the centre like Main does, and stores every position with the result of the game.
+     * Each move is the neighbour with the best static evaluation after it, except for a share of random moves that keeps the games varied.
+     *
+     * @return	void
+     */
+    private void playGame() {
+        Gomoku game = new Gomoku (size);
+        Evaluate evaluate = new Evaluate (size);
+        char[][] board = game.getBoard ();
+        ArrayList<int[]> gamePositions = new ArrayList<int[]> ();
+        ArrayList<Integer> stones = new ArrayList<Integer> ();
+        boolean isComputer = true;
+        int x = size / 2, y = size / 2;
+        double result = 0.5;
+
+        while (true) {
+            game.addStone (x, y, isComputer);
+            stones.add (NeuralEvaluate.inputIndex (size, x, y, isComputer));
+            gamePositions.add (toArray (stones));
+            if (game.isWinningStone (x, y)) {
+                result = isComputer ? 1 : 0;
+                break;
+            }
+            ArrayList<Move> neighbours = game.getAvailableNeighbours ();
+            if (game.getEmptySquares () == 0 || neighbours.isEmpty ()) {
+                break;
+            }
+            isComputer = !isComputer;
+            Move next = random.nextDouble () < RANDOM_MOVE_CHANCE
+                    ? neighbours.get (random.nextInt (neighbours.size ()))
+                    : bestMove (game, evaluate, board, neighbours, isComputer);
+            x = next.getX ();
+            y = next.getY ();
+        }
+        for (int[] position : gamePositions) {
+            positions.add (position);
+            results.add (result);
+        }
+    }
+    /**
+     * Looks one move ahead and returns the neighbour that wins at once or otherwise gives the best static evaluation for the player to move.
+     */
+    private Move bestMove(Gomoku game, Evaluate evaluate, char[][] board, ArrayList<Move> neighbours, boolean isComputer) {
+        Move best = neighbours.get (0);
+        int bestValue = isComputer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (Move place : neighbours) {
+            board[place.getX ()][place.getY ()] = isComputer ? 'O' : 'X';
+            boolean wins = game.isWinningStone (place.getX (), place.getY ());
+            int value = evaluate.getStaticEvaluation (board);
+            board[place.getX ()][place.getY ()] = 0;
+            if (wins) {
+                return place;
+            }
+            if (isComputer ? value > bestValue : value < bestValue) {
+                bestValue = value;
+                best = place;
+            }
+        }
+        return best;
+    }
+    /**
+     * Runs one pass of stochastic gradient descent over all positions in random order, minimizing the cross entropy between the predicted and the real result.
+     *
+     * @return	double	The average loss of the pass.
+     */
+    private double train() {
+        ArrayList<Integer> order = new ArrayList<Integer> ();
+        for (int i = 0; i < positions.size (); i++) {
+            order.add (i);
+        }
+        Collections.shuffle (order, random);
+
+        double totalLoss = 0;
+        double[] z1 = new double[H], a1 = new double[H], z2 = new double[H2], a2 = new double[H2];
+        double[] dz1 = new double[H], dz2 = new double[H2];
+        for (int index : order) {
+            int[] features = positions.get (index);
+            double target = results.get (index);
+
+            // forward pass, the same layers as NeuralEvaluate.getStaticEvaluation.
+            for (int i = 0; i < H; i++) {
+                z1[i] = b1[i];
+            }
+            for (int feature : features) {
+                for (int i = 0; i < H; i++) {
+                    z1[i] += w1[feature][i];
+                }
+            }
+            for (int i = 0; i < H; i++) {
+                a1[i] = clip (z1[i]);
+            }
+            double output = b3;
+            for (int j = 0; j < H2; j++) {
+                z2[j] = b2[j];
+                for (int i = 0; i < H; i++) {
+                    z2[j] += a1[i] * w2[i][j];
+                }
+                a2[j] = clip (z2[j]);
+                output += a2[j] * w3[j];
+            }
+            double prediction = 1 / (1 + Math.exp (-output));
+            totalLoss -= target * Math.log (prediction + 1e-9) + (1 - target) * Math.log (1 - prediction + 1e-9);
+
+            // backward pass.
+            double gradient = prediction - target;
+            for (int j = 0; j < H2; j++) {
+                dz2[j] = z2[j] > 0 && z2[j] < 1 ? gradient * w3[j] : 0;
+                w3[j] = limit (w3[j] - LEARNING_RATE * gradient * a2[j], MAX_WEIGHT);
+            }
+            b3 -= LEARNING_RATE * gradient;
+            for (int i = 0; i < H; i++) {
+                double da1 = 0;
+                for (int j = 0; j < H2; j++) {
+                    da1 += dz2[j] * w2[i][j];
+                    w2[i][j] = limit (w2[i][j] - LEARNING_RATE * dz2[j] * a1[i], MAX_WEIGHT);
+                }
+                dz1[i] = z1[i] > 0 && z1[i] < 1 ? da1 : 0;
+                b1[i] -= LEARNING_RATE * dz1[i];
+            }
+            for (int j = 0; j < H2; j++) {
+                b2[j] -= LEARNING_RATE * dz2[j];
+            }
+            for (int feature : features) {
+                for (int i = 0; i < H; i++) {
+                    w1[feature][i] = limit (w1[feature][i] - LEARNING_RATE * dz1[i], MAX_INPUT_WEIGHT);
+                }
+            }
+        }
+        return totalLoss / positions.size ();
+    }
+    /**
+     * Rounds the trained weights to the integer scales used by NeuralEvaluate.
+     *
+     * @return	NeuralEvaluate	The quantized network.
+     */
+    private NeuralEvaluate quantize() {
+        final int A = NeuralEvaluate.ACTIVATION_SCALE, W = NeuralEvaluate.WEIGHT_SCALE;
+        short[] inputWeights = new short[w1.length * H];
+        for (int feature = 0; feature < w1.length; feature++) {
+            for (int i = 0; i < H; i++) {
+                inputWeights[feature * H + i] = (short) Math.round (w1[feature][i] * A);
+            }
+        }
+        short[] inputBiases = new short[H];
+        byte[] hiddenWeights = new byte[H * H2];
+        for (int i = 0; i < H; i++) {
+            inputBiases[i] = (short) Math.round (limit (b1[i], MAX_INPUT_WEIGHT) * A);
+            for (int j = 0; j < H2; j++) {
+                hiddenWeights[i * H2 + j] = (byte) Math.round (w2[i][j] * W);
+            }
+        }
+        int[] hiddenBiases = new int[H2];
+        byte[] outputWeights = new byte[H2];
+        for (int j = 0; j < H2; j++) {
+            hiddenBiases[j] = (int) Math.round (b2[j] * A * W);
+            outputWeights[j] = (byte) Math.round (w3[j] * W);
+        }
+        int outputBias = (int) Math.round (b3 * A * W);
+        return new NeuralEvaluate (size, inputWeights, inputBiases, hiddenWeights, hiddenBiases, outputWeights, outputBias);
+    }
+
+    private static int[] toArray(ArrayList<Integer> list) {
+        int[] array = new int[list.size ()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get (i);
+        }
+        return array;
+    }
+
+    private static double clip(double value) {
+        return Math.max (0, Math.min (1, value));
+    }
+
+    private static double limit(double value, double max) {
+        return Math.max (-max, Math.min (max, value));
+    }
+}// NeuralTrainer
@@ -0,0 +1,256 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The PiskvorkBrain class lets the computer play in the Gomocup tournament manager Piskvork, or any other manager that speaks its "brain" protocol on stdin and stdout.
+ * The brain always plays the computer's markers and the opponent plays the human's. The protocol commands that are understood are:
+ *
+ * START size						starts a new game on a board of the given width. Answered with OK.
+ * RESTART							starts a new game on the same board. Answered with OK.
+ * BEGIN							the brain makes the first move. Answered with the move as x,y.
+ * TURN x,y							the opponent played x,y. Answered with the brain's move.
+ * BOARD ... DONE					sets up a position, one x,y,who line per marker where who is 1 for the brain and 2 for the opponent. Answered with the brain's move.
+ * INFO key value					timeout_turn, timeout_match and time_left in milliseconds and max_memory in bytes, 0 meaning no limit. Other keys are ignored.
+ * ABOUT							answered with the name of the brain.
+ * END								stops the brain.
+ *
+ * The time for a move is the turn limit or an even share of the match time that is left, whichever is smaller, less a safety margin. Within that time the computer searches
+ * one depth deeper at a time (see Gomoku.searchUntil). The position store is made as large as half of max_memory allows. It is made when the first search starts,
+ * so that an INFO max_memory sent after START is followed, made again whenever max_memory changes and otherwise kept between games on the same board size.
+ *
+ * Usage: java PiskvorkBrain
+ */
+public class PiskvorkBrain {
+    private static final String ABOUT = "name=\"Gomoku-Minimax\", version=\"1.0\", author=\"Christian Neij and Christoffer Oehman\"";
+    private static final int MIN_SIZE = 5;
+    private static final int MAX_DEPTH = 20;
+    private static final long DEFAULT_TURN_TIMEOUT = 5000; // milliseconds, used until the manager sends timeout_turn.
+    private static final long SAFETY_MARGIN = 100; // milliseconds kept back for reading the command and writing the answer.
+    private static final int EXPECTED_MOVES_LEFT = 20; // the match time that is left is shared out as if this many moves remain.
+    private static final int MEMORY_SHARE = 2; // the position store may use one part in this many of max_memory.
+    private static final String OWN = "1";
+    private static final String OPPONENT = "2";
+    private final BufferedReader in;
+    private final PrintStream out;
+    private Gomoku game;
+    private PositionStore store; // null until the next search makes it.
+    private int size;
+    private long turnTimeout = DEFAULT_TURN_TIMEOUT;
+    private long matchTimeout; // 0 means no limit.
+    private long timeLeft = Long.MAX_VALUE;
+    private long maxMemory; // 0 means no limit.
+
+    public PiskvorkBrain(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream (System.out, true, StandardCharsets.US_ASCII);
+        System.setOut (System.err); // anything else printed by the engine must not reach the manager.
+        new PiskvorkBrain (new BufferedReader (new InputStreamReader (System.in, StandardCharsets.US_ASCII)), out).run ();
+    }
+    /**
+     * Answers the commands of the manager until it sends END or closes stdin.
+     *
+     * @return	void
+     * @throws	IOException	If stdin cannot be read.
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine ()) != null) {
+            long receivedAt = System.currentTimeMillis ();
+            line = line.trim ();
+            if (line.isEmpty ()) {
+                continue;
+            }
+            String[] parts = line.split ("\\s+", 2);
+            String command = parts[0].toUpperCase ();
+            String argument = parts.length > 1 ? parts[1] : "";
+            try {
+                if (command.equals ("END")) {
+                    return;
+                }
+                handle (command, argument, receivedAt);
+            } catch (IllegalArgumentException e) {
+                out.println ("ERROR " + e.getMessage ());
+            }
+        }
+    }
+
+    private void handle(String command, String argument, long receivedAt) throws IOException {
+        switch (command) {
+            case "START":
+                int requested = parseNumber (argument);
+                if (requested < MIN_SIZE) {
+                    throw new IllegalArgumentException ("unsupported board size " + argument);
+                }
+                if (requested != size) {
+                    store = null;
+                }
+                size = requested;
+                newGame ();
+                out.println ("OK");
+                break;
+            case "RESTART":
+                requireGame ();
+                newGame ();
+                out.println ("OK");
+                break;
+            case "BEGIN":
+                requireGame ();
+                play (-1, -1, receivedAt);
+                break;
+            case "TURN":
+                requireGame ();
+                int[] turn = parseSquare (argument);
+                if (!game.addStone (turn[0], turn[1], false)) {
+                    throw new IllegalArgumentException ("square " + argument + " is taken or outside the board");
+                }
+                play (turn[0], turn[1], receivedAt);
+                break;
+            case "BOARD":
+                requireGame ();
+                readBoard (receivedAt);
+                break;
+            case "INFO":
+                readInfo (argument);
+                break;
+            case "ABOUT":
+                out.println (ABOUT);
+                break;
+            default:
+                out.println ("UNKNOWN " + command);
+        }
+    }
+    /**
+     * Reads the markers of a BOARD command up to DONE into a new game and answers with the brain's move. The last marker of the opponent is taken as the move
+     * the brain replies to, and if the opponent has none the last marker of the brain is used.
+     */
+    private void readBoard(long receivedAt) throws IOException {
+        newGame ();
+        int lastX = -1, lastY = -1;
+        String line;
+        while ((line = in.readLine ()) != null && !line.trim ().equalsIgnoreCase ("DONE")) {
+            String[] fields = line.trim ().split (",");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException ("bad board line " + line);
+            }
+            int[] square = parseSquare (fields[0] + "," + fields[1]);
+            boolean isOwn = fields[2].trim ().equals (OWN);
+            if (!isOwn && !fields[2].trim ().equals (OPPONENT)) {
+                continue; // markers of a continuous game are not supported and are left out.
+            }
+            if (!game.addStone (square[0], square[1], isOwn)) {
+                throw new IllegalArgumentException ("square " + fields[0] + "," + fields[1] + " is taken or outside the board");
+            }
+            if (!isOwn || lastX < 0 || game.getBoard ()[lastX][lastY] == 'O') {
+                lastX = square[0];
+                lastY = square[1];
+            }
+        }
+        play (lastX, lastY, receivedAt);
+    }
+
+    private void readInfo(String argument) {
+        String[] parts = argument.split ("\\s+", 2);
+        if (parts.length < 2) {
+            return;
+        }
+        switch (parts[0].toLowerCase ()) {
+            case "timeout_turn":
+                turnTimeout = Long.parseLong (parts[1].trim ());
+                break;
+            case "timeout_match":
+                matchTimeout = Long.parseLong (parts[1].trim ());
+                timeLeft = matchTimeout != 0 ? matchTimeout : Long.MAX_VALUE;
+                break;
+            case "time_left":
+                timeLeft = Long.parseLong (parts[1].trim ());
+                break;
+            case "max_memory":
+                long memory = Long.parseLong (parts[1].trim ());
+                if (memory != maxMemory) {
+                    maxMemory = memory;
+                    store = null; // the store is sized again before the next search, it is let go now so that the old one can be freed first.
+                    if (game != null) {
+                        game.usePositionStore (null);
+                    }
+                }
+                break;
+            default:
+                // rule, game_type, folder and other keys do not change how the brain plays.
+        }
+    }
+    /**
+     * Chooses the brain's move within the time for this turn, places it and writes it to the manager. An empty board is answered with the centre.
+     */
+    private void play(int x, int y, long receivedAt) {
+        Move move;
+        if (game.getEmptySquares () == size * size) {
+            move = new Move (size / 2, size / 2);
+        } else {
+            attachStore ();
+            move = game.searchUntil (x, y, receivedAt + moveTime (), MAX_DEPTH);
+            if (move.getX () < 0) {
+                throw new IllegalArgumentException ("no move is left on the board");
+            }
+        }
+        game.addStone (move.getX (), move.getY (), true);
+        if (matchTimeout != 0) {
+            timeLeft -= System.currentTimeMillis () - receivedAt; // kept up to date in case the manager does not send time_left.
+        }
+        out.println (move.getX () + "," + move.getY ());
+    }
+    /**
+     * Returns the milliseconds the brain may use for the current move. A turn limit of 0 asks the brain to play as fast as it can, the search then stops after depth 1.
+     */
+    private long moveTime() {
+        long time = turnTimeout;
+        if (matchTimeout != 0) {
+            time = Math.min (time, timeLeft / EXPECTED_MOVES_LEFT);
+        }
+        return Math.max (0, time - SAFETY_MARGIN);
+    }
+    /**
+     * Starts a new game on a board of the current size.
+     */
+    private void newGame() {
+        game = new Gomoku (size);
+    }
+    /**
+     * Gives the game a position store that fits in the memory the brain is given, making the store first if there is none.
+     */
+    private void attachStore() {
+        if (store == null) {
+            long memory = maxMemory != 0 ? Math.min (maxMemory, Runtime.getRuntime ().maxMemory ()) : Runtime.getRuntime ().maxMemory ();
+            store = new PositionStore (size, PositionStore.capacityFor (memory / MEMORY_SHARE), game.getEvaluator ());
+        }
+        game.usePositionStore (store);
+    }
+
+    private void requireGame() {
+        if (game == null) {
+            throw new IllegalArgumentException ("no game has been started");
+        }
+    }
+
+    private int[] parseSquare(String text) {
+        String[] coordinates = text.split (",");
+        if (coordinates.length != 2) {
+            throw new IllegalArgumentException ("bad coordinates " + text);
+        }
+        return new int[] {parseNumber (coordinates[0]), parseNumber (coordinates[1])};
+    }
+
+    private static int parseNumber(String text) {
+        try {
+            return Integer.parseInt (text.trim ());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException ("bad number " + text);
+        }
+    }
+}// PiskvorkBrain
@@ -0,0 +1,263 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The PositionStore class remembers the results of searches so that they survive when the program is restarted. For every searched position it keeps the hash of the position,
+ * the depth of the search, the value and the best move. The store has a fixed number of entries, when two positions compete for the same place the deeper search is kept.
+ *
+ * The store can be written to a snapshot file, on shutdown and at a fixed interval, and read back when the program starts. The file starts with a header holding the version of the file format,
+ * the version of the engine, the evaluation the results were searched with and the board size, and ends with a CRC32 checksum of everything before it. A snapshot that was made by another
+ * engine version, with another evaluation or for another board size, or that is damaged, is ignored since its results could be wrong for the current search.
+ * The file is read through a memory-mapped buffer.
+ */
+public class PositionStore {
+    static final int ENGINE_VERSION = 2; // must be increased whenever a change to the search or evaluation changes the results.
+    private static final int MAGIC = 0x474D4B53; // "GMKS"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 28; // magic, format version, engine version, evaluator, board size, capacity and number of entries.
+    private static final int ENTRY_BYTES = 20; // hash, depth, value and move.
+    private static final int CHECKSUM_BYTES = 8;
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 5; // minutes.
+    private static final int NO_MOVE = -1;
+    private final int size;
+    private final int evaluator; // see Gomoku.getEvaluator.
+    private final long[] keys;
+    private final int[] depths; // 0 for an unused entry.
+    private final int[] values;
+    private final int[] moves; // x * size + y.
+    private final int mask;
+    private Path snapshotPath;
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param	size		The width of the board.
+     * @param	capacity	The number of entries, rounded down to a power of two.
+     * @param	evaluator	The evaluation the stored results are searched with, as given by Gomoku.getEvaluator.
+     */
+    public PositionStore(int size, int capacity, int evaluator) {
+        this.size = size;
+        this.evaluator = evaluator;
+        int entries = Integer.highestOneBit (Math.max (2, capacity));
+        mask = entries - 1;
+        keys = new long[entries];
+        depths = new int[entries];
+        values = new int[entries];
+        moves = new int[entries];
+    }
+    /**
+     * Returns the largest capacity that a store can have without its entries using more than the given amount of memory.
+     *
+     * @param	bytes	The memory the store may use.
+     * @return	int		The capacity, a power of two no larger than the default capacity.
+     */
+    static int capacityFor(long bytes) {
+        long entries = Math.max (2, Math.min (DEFAULT_CAPACITY, bytes / ENTRY_BYTES)); // an entry takes as many bytes in memory as in the file.
+        return Integer.highestOneBit ((int) entries);
+    }
+    /**
+     * Creates a store for a board, fills it from the snapshot file if the file holds a valid snapshot, and makes sure the store is written back to the file
+     * every few minutes and when the program shuts down.
+     *
+     * @param	path			The snapshot file.
+     * @param	size			The width of the board.
+     * @param	evaluator		The evaluation the results are searched with, as given by Gomoku.getEvaluator.
+     * @return	PositionStore	The store.
+     */
+    public static PositionStore open(String path, int size, int evaluator) {
+        PositionStore store = new PositionStore (size, DEFAULT_CAPACITY, evaluator);
+        store.snapshotPath = Paths.get (path);
+        try {
+            store.load (store.snapshotPath);
+        } catch (IOException e) {
+            System.out.println ("Ignoring position snapshot: " + e.getMessage ());
+        }
+        store.startSnapshots (DEFAULT_SNAPSHOT_INTERVAL, TimeUnit.MINUTES);
+        Runtime.getRuntime ().addShutdownHook (new Thread (store::saveQuietly));
+        return store;
+    }
+    /**
+     * Returns which evaluation the results in the store were searched with.
+     *
+     * @return	int		The evaluator, see Gomoku.getEvaluator.
+     */
+    public int getEvaluator() {
+        return evaluator;
+    }
+    /**
+     * Looks up the result of a search of a position.
+     *
+     * @param	key			The hash of the position.
+     * @param	minDepth	The smallest search depth that is good enough.
+     * @return	Move		The stored best move with its value, or null if the position was not stored or was searched less deep.
+     */
+    public synchronized Move lookup(long key, int minDepth) {
+        int index = find (key);
+        if (index < 0 || depths[index] < minDepth || moves[index] == NO_MOVE) {
+            return null;
+        }
+        return new Move (moves[index] / size, moves[index] % size, values[index]);
+    }
+    /**
+     * Stores the result of a search. If the place for the position is taken by another position, the result of the deeper search is kept.
+     *
+     * @param	key		The hash of the position.
+     * @param	depth	The depth of the search, at least 1.
+     * @param	best	The best move with its value.
+     * @return	void
+     */
+    public synchronized void store(long key, int depth, Move best) {
+        int index = find (key);
+        if (index < 0) {
+            int first = (int) key & mask & ~1;
+            index = depths[first] <= depths[first + 1] ? first : first + 1;
+        } else if (depths[index] > depth) {
+            return;
+        }
+        keys[index] = key;
+        depths[index] = Math.max (1, depth);
+        values[index] = best.value ();
+        moves[index] = best.getX () < 0 ? NO_MOVE : best.getX () * size + best.getY ();
+    }
+    // every hash has two possible entries, returns the index of the one holding the key or -1.
+    private int find(long key) {
+        int index = (int) key & mask & ~1;
+        if (depths[index] != 0 && keys[index] == key) {
+            return index;
+        }
+        if (depths[index + 1] != 0 && keys[index + 1] == key) {
+            return index + 1;
+        }
+        return -1;
+    }
+    /**
+     * Writes the store to a snapshot file. The file is written next to the old one first and then moved over it, so a crash while writing leaves the old snapshot intact.
+     *
+     * @param	path		The snapshot file.
+     * @return	void
+     * @throws	IOException	If the file cannot be written.
+     */
+    public synchronized void save(Path path) throws IOException {
+        int count = 0;
+        for (int depth : depths) {
+            count += depth != 0 ? 1 : 0;
+        }
+        File temporary = new File (path.toString () + ".tmp");
+        CRC32 checksum = new CRC32 ();
+        try (FileOutputStream file = new FileOutputStream (temporary)) {
+            DataOutputStream out = new DataOutputStream (new BufferedOutputStream (new CheckedOutputStream (file, checksum)));
+            out.writeInt (MAGIC);
+            out.writeInt (FORMAT_VERSION);
+            out.writeInt (ENGINE_VERSION);
+            out.writeInt (evaluator);
+            out.writeInt (size);
+            out.writeInt (keys.length);
+            out.writeInt (count);
+            for (int i = 0; i < keys.length; i++) {
+                if (depths[i] != 0) {
+                    out.writeLong (keys[i]);
+                    out.writeInt (depths[i]);
+                    out.writeInt (values[i]);
+                    out.writeInt (moves[i]);
+                }
+            }
+            out.flush ();
+            new DataOutputStream (file).writeLong (checksum.getValue ()); // the checksum itself is not part of the checksum.
+        }
+        Files.move (temporary.toPath (), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    /**
+     * Reads a snapshot file into the store after checking that it is complete, undamaged and made by this engine version with the same evaluation for this board size.
+     * Nothing is read if any check fails. A missing file is not an error.
+     *
+     * @param	path		The snapshot file.
+     * @return	void
+     * @throws	IOException	If the file exists but is not a valid snapshot for this engine.
+     */
+    public synchronized void load(Path path) throws IOException {
+        if (!Files.exists (path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open (path, StandardOpenOption.READ)) {
+            long length = channel.size ();
+            if (length < HEADER_BYTES + CHECKSUM_BYTES) {
+                throw new IOException ("the file is too short");
+            }
+            MappedByteBuffer buffer = channel.map (FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt () != MAGIC || buffer.getInt () != FORMAT_VERSION) {
+                throw new IOException ("not a snapshot of this format");
+            }
+            if (buffer.getInt () != ENGINE_VERSION) {
+                throw new IOException ("made by another engine version");
+            }
+            if (buffer.getInt () != evaluator) {
+                throw new IOException ("made with another evaluation");
+            }
+            if (buffer.getInt () != size) {
+                throw new IOException ("made for another board size");
+            }
+            buffer.getInt (); // capacity of the store that wrote the file, the entries are placed again below.
+            int count = buffer.getInt ();
+            if (count < 0 || length != HEADER_BYTES + (long) count * ENTRY_BYTES + CHECKSUM_BYTES) {
+                throw new IOException ("the file has the wrong length");
+            }
+            CRC32 checksum = new CRC32 ();
+            ByteBuffer content = buffer.duplicate ();
+            content.position (0).limit ((int) (length - CHECKSUM_BYTES));
+            checksum.update (content);
+            if (buffer.getLong ((int) (length - CHECKSUM_BYTES)) != checksum.getValue ()) {
+                throw new IOException ("the checksum does not match");
+            }
+            for (int i = 0; i < count; i++) {
+                long key = buffer.getLong ();
+                int depth = buffer.getInt ();
+                int value = buffer.getInt ();
+                int move = buffer.getInt ();
+                store (key, depth, move == NO_MOVE ? new Move (-1, -1, value) : new Move (move / size, move % size, value));
+            }
+        }
+    }
+    /**
+     * Writes the snapshot file at a fixed interval on a background thread.
+     *
+     * @param	interval	The time between snapshots.
+     * @param	unit		The unit of the interval.
+     * @return	void
+     */
+    public void startSnapshots(long interval, TimeUnit unit) {
+        if (snapshotter == null) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor (task -> {
+                Thread thread = new Thread (task, "position-snapshots");
+                thread.setDaemon (true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay (this::saveQuietly, interval, interval, unit);
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save (snapshotPath);
+        } catch (IOException e) {
+            System.err.println ("Could not write position snapshot: " + e.getMessage ());
+        }
+    }
+}// PositionStore
@@ -0,0 +1,690 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * The ProofSolver class finds the exact result of a position, win, loss or draw, instead of the estimate that minimax gives at a limited depth.
+ * It uses depth-first proof-number search (df-pn). The search tries to prove that one player (the attacker) can force five in a row. Every position gets a proof number,
+ * roughly how many positions still have to be solved to prove the win, and a disproof number for the opposite, and the search always continues where these numbers are smallest.
+ * Both players are tried as the attacker, taking turns with a growing number of nodes each. If neither can force a win the result is a draw.
+ *
+ * Every empty square is a possible move so the results are exact, but moves that cannot change the outcome are left out: when a player can win at once only that move is tried,
+ * when the opponent threatens to win at once only the moves that block it are tried, and when the attacker threatens to make two fives possible at once the defender only
+ * tries moves on the lines of that threat or moves that make a four. Proof and disproof numbers are kept in tables of fixed size that can be written to a checkpoint file
+ * while the search runs so that a long proof can be continued after the program is stopped.
+ *
+ * When a search ends, every position in the tables that was proven on the way is handed to the game, together with the winning move of a solved position
+ * where the computer is to move, so that the computer plays the win and minimax scores proven positions exactly when it reaches them. The game keeps them in a
+ * ProvenTable of fixed size, so handing them over does not use more memory however often the solver is run.
+ *
+ * Usage: java ProofSolver size O|X [--nodes=n] [--memory=megabytes] [--checkpoint=file] stones...
+ * O or X tells who is to move, stones are written as O or X followed by x,y like in SearchRegression. java ProofSolver --check solves a few fixed positions and checks the results.
+ */
+public class ProofSolver {
+    public static final int WIN = 1, DRAW = 0, LOSS = -1, UNKNOWN = 2;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int MAGIC = 0x474D4B50; // "GMKP"
+    private static final int VERSION = 3; // the tables are keyed by Gomoku.positionKey since version 2, and the second attacker's table starts with the defender to move since version 3.
+    private static final int ENTRY_BYTES = 20; // key, proof number, disproof number and work.
+    private static final int DEFAULT_MEMORY = 64; // megabytes.
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 1000000; // nodes.
+    private static final long FIRST_BUDGET = 1000; // nodes given to each attacker in the first round, doubled every round.
+    private static final char MAX_STONE = 'O';
+    private static final char MIN_STONE = 'X';
+    private static final char EMPTY = 0;
+    private static final int WINNING_LENGTH = 5;
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    private final Gomoku game;
+    private final Gomoku scratch;
+    private final char[][] board;
+    private final Symmetry symmetry;
+    private final int size;
+    private final Table[] tables = new Table[2]; // one table for each player as attacker.
+    private Table table; // the table of the current attacker.
+    private int emptySquares;
+    private boolean attackerIsComputer;
+    private long nodes;
+    private long nodeLimit; // the search of the current attacker stops after this many nodes.
+    private boolean aborted;
+    private String checkpointPath;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private long nextCheckpoint;
+    private final boolean[] isDisproven = new boolean[2]; // whether the player to move (0) or the other player (1) has been proven unable to force a win.
+    private boolean rootIsComputersTurn;
+    private long rootHash;
+    private Move winningMove;
+    private int lastProof, lastDisproof; // the numbers of the position the last call to search finished.
+
+    /**
+     * Creates a solver for the positions of a game.
+     *
+     * @param	game				The game whose current position will be solved.
+     * @param	memoryMegabytes		How many megabytes the table of proof numbers may use.
+     */
+    public ProofSolver(Gomoku game, int memoryMegabytes) {
+        this.game = game;
+        this.size = game.getSize ();
+        scratch = new Gomoku (size);
+        board = scratch.getBoard ();
+        symmetry = new Symmetry (size);
+        long entries = Math.max (2, (long) memoryMegabytes * 1024 * 1024 / ENTRY_BYTES / tables.length);
+        int capacity = Integer.highestOneBit ((int) Math.min (entries, 1 << 29));
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new Table (capacity);
+        }
+    }
+    /**
+     * Makes the solver write its table to a file every interval nodes, and continue from that file if it already holds a checkpoint of the same position.
+     *
+     * @param	path		The checkpoint file, or null for no checkpoints.
+     * @param	interval	How many nodes are searched between checkpoints.
+     * @return	void
+     */
+    public void setCheckpoint(String path, long interval) {
+        checkpointPath = path;
+        checkpointInterval = interval;
+    }
+    /**
+     * Solves the current position of the game. A proven result is also given to the game so that minimax scores the position exactly from now on,
+     * and so are the positions proven on the way, even if the node limit is reached before the position itself is solved.
+     *
+     * @param	isComputersTurn	Whether the computer is to move.
+     * @param	maxNodes		How many positions may be searched before giving up.
+     * @return	int				WIN, LOSS or DRAW seen from the computer, or UNKNOWN if the node limit was reached.
+     * @throws	IOException		If a checkpoint cannot be written.
+     */
+    public int solve(boolean isComputersTurn, long maxNodes) throws IOException {
+        scratch.copyFrom (game);
+        emptySquares = scratch.getEmptySquares ();
+        rootHash = scratch.getHash ();
+        rootIsComputersTurn = isComputersTurn;
+        winningMove = null;
+        nodes = 0;
+        isDisproven[0] = isDisproven[1] = false;
+        if (checkpointPath == null || !loadCheckpoint ()) {
+            tables[0].clear ();
+            tables[1].clear ();
+        }
+        long limit = maxNodes > Long.MAX_VALUE - nodes ? Long.MAX_VALUE : nodes + maxNodes; // the limit counts from where a checkpoint left off.
+        nextCheckpoint = nodes + checkpointInterval;
+
+        // the two attackers take turns with a growing number of nodes, so that an easy proof for one of them is not held up by a hard one for the other.
+        int result = UNKNOWN;
+        for (long budget = FIRST_BUDGET; result == UNKNOWN; budget *= 2) {
+            for (int stage = 0; stage < 2 && result == UNKNOWN; stage++) {
+                if (isDisproven[stage]) {
+                    continue;
+                }
+                if (nodes >= limit) {
+                    writeCheckpoint ();
+                    exportResults ();
+                    return UNKNOWN;
+                }
+                attackerIsComputer = stage == 0 ? isComputersTurn : !isComputersTurn;
+                table = tables[stage];
+                nodeLimit = Math.min (limit, nodes + budget);
+                aborted = false;
+                search (rootHash, stage == 0, INFINITY, INFINITY); // in stage 1 the attacker is the player who is not to move, so the defender moves first.
+                if (lastProof == 0) {
+                    result = attackerIsComputer ? WIN : LOSS;
+                    if (stage == 0) {
+                        winningMove = findProvenMove ();
+                    }
+                } else if (lastDisproof == 0) {
+                    isDisproven[stage] = true;
+                }
+            }
+            if (isDisproven[0] && isDisproven[1]) {
+                result = DRAW;
+            }
+        }
+        if (checkpointPath != null) {
+            new File (checkpointPath).delete ();
+        }
+        game.addProvenResult (isComputersTurn, result);
+        if (winningMove != null && isComputersTurn) {
+            game.addProvenWin (winningMove);
+        }
+        exportResults ();
+        return result;
+    }
+    /**
+     * Hands every proven position in the tables to the game. A position is won for the attacker of a table if its proof number there is 0, and a draw
+     * if its disproof number is 0 in both tables since then neither player can force a win. The tables are keyed like the game's positions so the keys are passed on as they are,
+     * together with the work of each entry so that the game's fixed-size table keeps the hardest proofs when it cannot hold them all.
+     *
+     * @return	void
+     */
+    private void exportResults() {
+        for (int stage = 0; stage < tables.length; stage++) {
+            boolean isComputerAttacker = stage == 0 ? rootIsComputersTurn : !rootIsComputersTurn;
+            Table own = tables[stage];
+            Table other = tables[1 - stage];
+            for (int i = 0; i < own.keys.length; i++) {
+                if (own.works[i] == 0) {
+                    continue;
+                }
+                if (own.proofs[i] == 0) {
+                    game.addProvenResult (own.keys[i], isComputerAttacker ? WIN : LOSS, own.works[i]);
+                } else if (stage == 0 && own.disproofs[i] == 0) {
+                    int index = other.lookup (own.keys[i]);
+                    if (index >= 0 && other.disproofs[index] == 0) {
+                        game.addProvenResult (own.keys[i], DRAW, Math.min (own.works[i], other.works[index]));
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Returns a move that wins by force if the last solved position was a win for the player to move.
+     *
+     * @return	Move	The winning move or null.
+     */
+    public Move getWinningMove() {
+        return winningMove;
+    }
+    /**
+     * Returns how many positions the last call to solve searched, including those searched before a checkpoint it continued from.
+     *
+     * @return	long	The number of positions.
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+    /**
+     * The df-pn search of one position. It keeps searching the most promising move until the proof number reaches thresholdProof or the disproof number reaches thresholdDisproof,
+     * then it stores the numbers in the table and in lastProof and lastDisproof.
+     *
+     * @param	hash				The hash of the position.
+     * @param	isAttackersTurn		Whether the attacker is to move. The proof number is then the smallest of the moves, otherwise the sum.
+     * @param	thresholdProof		The proof number at which the caller wants the search to stop.
+     * @param	thresholdDisproof	The disproof number at which the caller wants the search to stop.
+     * @return	void
+     */
+    private void search(long hash, boolean isAttackersTurn, int thresholdProof, int thresholdDisproof) throws IOException {
+        nodes++;
+        if (nodes > nodeLimit) {
+            aborted = true;
+        }
+        if (checkpointPath != null && nodes >= nextCheckpoint) {
+            writeCheckpoint ();
+            nextCheckpoint = nodes + checkpointInterval;
+        }
+        long startNodes = nodes;
+        boolean moverIsComputer = isAttackersTurn == attackerIsComputer;
+        int[] moves = generateMoves (moverIsComputer, isAttackersTurn);
+        if (moves.length == 0) { // a full board is a draw, which the attacker fails to win.
+            lastProof = INFINITY;
+            lastDisproof = 0;
+            table.store (Gomoku.positionKey (hash, moverIsComputer), lastProof, lastDisproof, 1);
+            return;
+        }
+
+        int count = moves.length;
+        long[] childHashes = new long[count];
+        int[] childProofs = new int[count];
+        int[] childDisproofs = new int[count];
+        for (int i = 0; i < count; i++) {
+            int x = moves[i] / size, y = moves[i] % size;
+            childHashes[i] = hash ^ symmetry.key (x, y, moverIsComputer);
+            place (x, y, moverIsComputer);
+            if (scratch.isWinningStone (x, y)) {
+                childProofs[i] = isAttackersTurn ? 0 : INFINITY;
+                childDisproofs[i] = isAttackersTurn ? INFINITY : 0;
+            } else if (emptySquares == 0) {
+                childProofs[i] = INFINITY;
+                childDisproofs[i] = 0;
+            } else {
+                int index = table.lookup (Gomoku.positionKey (childHashes[i], !moverIsComputer));
+                childProofs[i] = index < 0 ? 1 : table.proofs[index];
+                childDisproofs[i] = index < 0 ? 1 : table.disproofs[index];
+            }
+            remove (x, y);
+        }
+
+        while (true) {
+            int proof, disproof;
+            if (isAttackersTurn) {
+                proof = min (childProofs);
+                disproof = sum (childDisproofs);
+            } else {
+                proof = sum (childProofs);
+                disproof = min (childDisproofs);
+            }
+            if (proof >= thresholdProof || disproof >= thresholdDisproof || aborted) {
+                lastProof = proof;
+                lastDisproof = disproof;
+                table.store (Gomoku.positionKey (hash, moverIsComputer), proof, disproof, (int) Math.min (Integer.MAX_VALUE, nodes - startNodes + 1));
+                return;
+            }
+
+            // the attacker follows the move with the smallest proof number, the defender the one with the smallest disproof number.
+            int[] numbers = isAttackersTurn ? childProofs : childDisproofs;
+            int best = -1, second = INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (best < 0 || numbers[i] < numbers[best]) {
+                    if (best >= 0) {
+                        second = Math.min (second, numbers[best]);
+                    }
+                    best = i;
+                } else {
+                    second = Math.min (second, numbers[i]);
+                }
+            }
+            int childThresholdProof, childThresholdDisproof;
+            if (isAttackersTurn) {
+                childThresholdProof = Math.min (thresholdProof, second + 1);
+                childThresholdDisproof = cap ((long) thresholdDisproof - disproof + childDisproofs[best]);
+            } else {
+                childThresholdProof = cap ((long) thresholdProof - proof + childProofs[best]);
+                childThresholdDisproof = Math.min (thresholdDisproof, second + 1);
+            }
+
+            int x = moves[best] / size, y = moves[best] % size;
+            place (x, y, moverIsComputer);
+            search (childHashes[best], !isAttackersTurn, childThresholdProof, childThresholdDisproof);
+            remove (x, y);
+            childProofs[best] = lastProof;
+            childDisproofs[best] = lastDisproof;
+        }
+    }
+    /**
+     * Lists the moves of a position as x * size + y. If the player to move can make five only that move is returned, if the opponent could make five
+     * only the squares that block it are returned. If the defender is to move and the attacker has a move that makes two fives possible at once (a double threat),
+     * only the moves near the lines of that threat and the moves that make a four for the defender are returned, since any other move loses.
+     * Otherwise every empty square is returned, those next to a marker first.
+     *
+     * @param	moverIsComputer		Whether the computer is to move.
+     * @param	isAttackersTurn		Whether the player to move is the attacker.
+     * @return	int[]				The moves.
+     */
+    private int[] generateMoves(boolean moverIsComputer, boolean isAttackersTurn) {
+        int[] near = new int[emptySquares];
+        int[] far = new int[emptySquares];
+        int[] blocks = new int[emptySquares];
+        int nearCount = 0, farCount = 0, blockCount = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (board[x][y] != EMPTY) {
+                    continue;
+                }
+                if (!hasMarkerNextTo (x, y)) { // five in a row can only be completed next to a marker.
+                    far[farCount++] = x * size + y;
+                    continue;
+                }
+                if (winsAt (x, y, moverIsComputer)) {
+                    return new int[] {x * size + y};
+                }
+                if (winsAt (x, y, !moverIsComputer)) {
+                    blocks[blockCount++] = x * size + y;
+                }
+                near[nearCount++] = x * size + y;
+            }
+        }
+        if (blockCount > 0) {
+            return trim (blocks, blockCount);
+        }
+        if (!isAttackersTurn) {
+            int[] defences = findDefences (near, nearCount, moverIsComputer);
+            if (defences != null) {
+                return defences;
+            }
+        }
+        int[] moves = new int[nearCount + farCount];
+        System.arraycopy (near, 0, moves, 0, nearCount);
+        System.arraycopy (far, 0, moves, nearCount, farCount);
+        return moves;
+    }
+
+    /**
+     * Finds the moves that can stop the opponent's double threats. A double threat can only be changed by a marker on one of the lines through it
+     * within four squares, so the defender has to play there or make a four of its own which the opponent must answer first.
+     *
+     * @param	near				The empty squares next to a marker.
+     * @param	nearCount			How many entries of near are used.
+     * @param	moverIsComputer		Whether the computer is the defender.
+     * @return	int[]				The defending moves, or null if the opponent has no double threat.
+     */
+    private int[] findDefences(int[] near, int nearCount, boolean moverIsComputer) {
+        boolean[][] zone = null;
+        for (int i = 0; i < nearCount; i++) {
+            int x = near[i] / size, y = near[i] % size;
+            board[x][y] = moverIsComputer ? MIN_STONE : MAX_STONE;
+            boolean isDoubleThreat = countFiveSquares (x, y, !moverIsComputer) >= 2;
+            board[x][y] = EMPTY;
+            if (isDoubleThreat) {
+                if (zone == null) {
+                    zone = new boolean[size][size];
+                }
+                for (int[] direction : DIRECTIONS) {
+                    for (int step = -WINNING_LENGTH + 1; step < WINNING_LENGTH; step++) {
+                        int zoneX = x + step * direction[0], zoneY = y + step * direction[1];
+                        if (zoneX >= 0 && zoneY >= 0 && zoneX < size && zoneY < size) {
+                            zone[zoneX][zoneY] = true;
+                        }
+                    }
+                }
+            }
+        }
+        if (zone == null) {
+            return null;
+        }
+
+        int[] defences = new int[emptySquares];
+        int count = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (board[x][y] != EMPTY) {
+                    continue;
+                }
+                if (zone[x][y]) {
+                    defences[count++] = x * size + y;
+                } else {
+                    board[x][y] = moverIsComputer ? MAX_STONE : MIN_STONE;
+                    boolean makesFour = countFiveSquares (x, y, moverIsComputer) > 0;
+                    board[x][y] = EMPTY;
+                    if (makesFour) {
+                        defences[count++] = x * size + y;
+                    }
+                }
+            }
+        }
+        return trim (defences, count);
+    }
+    /**
+     * Counts the empty squares on the lines through a newly placed marker where its player could make five with the next move.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @param	isComputer	Whether it is the computer's marker.
+     * @return	int			The number of squares.
+     */
+    private int countFiveSquares(int x, int y, boolean isComputer) {
+        int count = 0;
+        for (int[] direction : DIRECTIONS) {
+            for (int step = -WINNING_LENGTH + 1; step < WINNING_LENGTH; step++) {
+                int squareX = x + step * direction[0], squareY = y + step * direction[1];
+                if (step != 0 && squareX >= 0 && squareY >= 0 && squareX < size && squareY < size
+                        && board[squareX][squareY] == EMPTY && winsAt (squareX, squareY, isComputer)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean winsAt(int x, int y, boolean isComputer) {
+        board[x][y] = isComputer ? MAX_STONE : MIN_STONE;
+        boolean wins = scratch.isWinningStone (x, y);
+        board[x][y] = EMPTY;
+        return wins;
+    }
+
+    private boolean hasMarkerNextTo(int x, int y) {
+        for (int i = Math.max (0, x - 1); i <= Math.min (size - 1, x + 1); i++) {
+            for (int j = Math.max (0, y - 1); j <= Math.min (size - 1, y + 1); j++) {
+                if (board[i][j] != EMPTY) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    /**
+     * Looks up the root's moves in the table after a proven win and returns one that is proven.
+     *
+     * @return	Move	The winning move.
+     */
+    private Move findProvenMove() {
+        for (int move : generateMoves (attackerIsComputer, true)) {
+            int x = move / size, y = move % size;
+            place (x, y, attackerIsComputer);
+            boolean wins = scratch.isWinningStone (x, y);
+            remove (x, y);
+            int index = table.lookup (Gomoku.positionKey (rootHash ^ symmetry.key (x, y, attackerIsComputer), !attackerIsComputer));
+            if (wins || (index >= 0 && table.proofs[index] == 0)) {
+                return new Move (x, y, WIN);
+            }
+        }
+        return null;
+    }
+    // markers are written straight to the scratch board, the search does not need the neighbour list of Gomoku.
+    private void place(int x, int y, boolean isComputer) {
+        board[x][y] = isComputer ? MAX_STONE : MIN_STONE;
+        emptySquares--;
+    }
+
+    private void remove(int x, int y) {
+        board[x][y] = EMPTY;
+        emptySquares++;
+    }
+    /**
+     * Writes the used entries of both tables to the checkpoint file together with the position and how far the solver has come.
+     * The file is written next to the old one first and then moved over it, so a crash while writing leaves the old checkpoint intact.
+     *
+     * @return	void
+     * @throws	IOException	If the file cannot be written.
+     */
+    private void writeCheckpoint() throws IOException {
+        if (checkpointPath == null) {
+            return;
+        }
+        File temporary = new File (checkpointPath + ".tmp");
+        try (DataOutputStream out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (temporary)))) {
+            out.writeInt (MAGIC);
+            out.writeInt (VERSION);
+            out.writeInt (size);
+            out.writeLong (rootHash);
+            out.writeBoolean (rootIsComputersTurn);
+            out.writeLong (nodes);
+            for (int stage = 0; stage < tables.length; stage++) {
+                out.writeBoolean (isDisproven[stage]);
+                tables[stage].write (out);
+            }
+        }
+        Files.move (temporary.toPath (), new File (checkpointPath).toPath (), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    /**
+     * Reads the checkpoint file if it exists and belongs to the position being solved.
+     *
+     * @return	boolean		True if the tables and node count were restored from the file.
+     * @throws	IOException	If the file exists but cannot be read.
+     */
+    private boolean loadCheckpoint() throws IOException {
+        File file = new File (checkpointPath);
+        if (!file.exists ()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream (new BufferedInputStream (new FileInputStream (file)))) {
+            if (in.readInt () != MAGIC || in.readInt () != VERSION || in.readInt () != size
+                    || in.readLong () != rootHash || in.readBoolean () != rootIsComputersTurn) {
+                System.out.println ("Checkpoint " + checkpointPath + " belongs to another position, starting over.");
+                return false;
+            }
+            nodes = in.readLong ();
+            for (int stage = 0; stage < tables.length; stage++) {
+                isDisproven[stage] = in.readBoolean ();
+                tables[stage].read (in);
+            }
+        }
+        return true;
+    }
+
+    private static int min(int[] numbers) {
+        int min = INFINITY;
+        for (int number : numbers) {
+            min = Math.min (min, number);
+        }
+        return min;
+    }
+
+    private static int sum(int[] numbers) {
+        long sum = 0;
+        for (int number : numbers) {
+            sum += number;
+        }
+        return cap (sum);
+    }
+
+    private static int cap(long number) {
+        return (int) Math.max (0, Math.min (INFINITY, number));
+    }
+
+    private static int[] trim(int[] array, int length) {
+        int[] trimmed = new int[length];
+        System.arraycopy (array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals ("--check")) {
+            check ();
+            return;
+        }
+        int size = Integer.parseInt (args[0]);
+        boolean isComputersTurn = args[1].equals ("O");
+        long maxNodes = Long.MAX_VALUE;
+        int memory = DEFAULT_MEMORY;
+        String checkpoint = null;
+        Gomoku game = new Gomoku (size);
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith ("--nodes=")) {
+                maxNodes = Long.parseLong (args[i].substring ("--nodes=".length ()));
+            } else if (args[i].startsWith ("--memory=")) {
+                memory = Integer.parseInt (args[i].substring ("--memory=".length ()));
+            } else if (args[i].startsWith ("--checkpoint=")) {
+                checkpoint = args[i].substring ("--checkpoint=".length ());
+            } else {
+                String[] coordinates = args[i].substring (1).split (",");
+                game.addStone (Integer.parseInt (coordinates[0]), Integer.parseInt (coordinates[1]), args[i].charAt (0) == MAX_STONE);
+            }
+        }
+
+        ProofSolver solver = new ProofSolver (game, memory);
+        solver.setCheckpoint (checkpoint, DEFAULT_CHECKPOINT_INTERVAL);
+        long startTime = System.currentTimeMillis ();
+        int result = solver.solve (isComputersTurn, maxNodes);
+        String[] names = {"loss for O", "draw", "win for O", "unknown (node limit reached)"};
+        System.out.println ("Result: " + names[result + 1] + " after " + solver.getNodeCount () + " nodes in " + (System.currentTimeMillis () - startTime) + "ms");
+        if (solver.getWinningMove () != null) {
+            System.out.println ("Winning move: " + solver.getWinningMove ().getX () + "," + solver.getWinningMove ().getY ());
+        }
+    }
+
+    /**
+     * Solves a few fixed positions with a node limit and compares the results with the known ones. Prints a line for each position and exits with status 1 if any
+     * result differs. The positions are written as "size O|X stones..." like the arguments of main.
+     *
+     * @return	void
+     * @throws	IOException	Not thrown since no checkpoint is written.
+     */
+    private static void check() throws IOException {
+        Object[][] checks = {
+            // X threatens five at 0,4 but O is to move and blocks it, which once was reported as a loss since the second attacker was given the first move.
+            {"defender-moves-first", "7 O X0,0 X0,1 X0,2 X0,3 O3,3 O3,4 O4,4", 5000L, UNKNOWN},
+            {"four-for-the-mover", "7 X X0,0 X0,1 X0,2 X0,3 O3,3 O3,4 O4,4", 5000L, LOSS},
+            {"open-four", "7 O O3,2 O3,3 O3,4 X0,0 X1,1 X6,6", 5000L, WIN},
+        };
+        int failures = 0;
+        for (Object[] check : checks) {
+            String[] parts = ((String) check[1]).split (" ");
+            Gomoku game = new Gomoku (Integer.parseInt (parts[0]));
+            for (int i = 2; i < parts.length; i++) {
+                String[] coordinates = parts[i].substring (1).split (",");
+                game.addStone (Integer.parseInt (coordinates[0]), Integer.parseInt (coordinates[1]), parts[i].charAt (0) == MAX_STONE);
+            }
+            int result = new ProofSolver (game, 1).solve (parts[1].equals ("O"), (Long) check[2]);
+            if (result != (Integer) check[3]) {
+                failures++;
+                System.out.println ("FAIL " + check[0] + ": expected " + check[3] + ", got " + result);
+            } else {
+                System.out.println ("ok   " + check[0] + " " + result);
+            }
+        }
+        System.out.println (failures == 0 ? "All " + checks.length + " checks passed" : failures + " of " + checks.length + " checks failed");
+        if (failures > 0) {
+            System.exit (1);
+        }
+    }
+
+    /**
+     * A table of proof and disproof numbers with a fixed number of entries. Every hash has two possible entries, and when both are taken
+     * the one that took less work to calculate is replaced, so the memory used never grows.
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final int[] proofs;
+        private final int[] disproofs;
+        private final int[] works; // nodes searched below the entry, 0 for an unused entry.
+        private final int mask;
+
+        private Table(int capacity) {
+            mask = capacity - 1;
+            keys = new long[capacity];
+            proofs = new int[capacity];
+            disproofs = new int[capacity];
+            works = new int[capacity];
+        }
+        // returns the index of the entry for the hash or -1 if the position is not in the table.
+        private int lookup(long hash) {
+            int index = (int) hash & mask & ~1;
+            if (works[index] != 0 && keys[index] == hash) {
+                return index;
+            }
+            if (works[index + 1] != 0 && keys[index + 1] == hash) {
+                return index + 1;
+            }
+            return -1;
+        }
+
+        private void store(long hash, int proof, int disproof, int work) {
+            int index = lookup (hash);
+            if (index < 0) {
+                int first = (int) hash & mask & ~1;
+                index = works[first] <= works[first + 1] ? first : first + 1;
+            } else {
+                work = Math.max (work, works[index]);
+            }
+            keys[index] = hash;
+            proofs[index] = proof;
+            disproofs[index] = disproof;
+            works[index] = Math.max (1, work);
+        }
+
+        private void clear() {
+            Arrays.fill (works, 0);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            int used = 0;
+            for (int work : works) {
+                used += work != 0 ? 1 : 0;
+            }
+            out.writeInt (used);
+            for (int i = 0; i < works.length; i++) {
+                if (works[i] != 0) {
+                    out.writeLong (keys[i]);
+                    out.writeInt (proofs[i]);
+                    out.writeInt (disproofs[i]);
+                    out.writeInt (works[i]);
+                }
+            }
+        }
+
+        private void read(DataInputStream in) throws IOException {
+            clear ();
+            int used = in.readInt ();
+            for (int i = 0; i < used; i++) {
+                store (in.readLong (), in.readInt (), in.readInt (), in.readInt ());
+            }
+        }
+    }
+}// ProofSolver
@@ -0,0 +1,97 @@
+/**
+ * The ProvenTable class holds the results ProofSolver has proven, as exact scores for minimax and winning moves for the computer. It has a fixed number of entries
+ * so the memory it uses never grows however many positions are proven: every key has two possible entries, and when both are taken by other positions the one
+ * that took less work to prove is replaced, just like the tables of ProofSolver itself. A position that is replaced is simply searched by minimax again.
+ */
+public class ProvenTable {
+    static final int NOT_FOUND = Integer.MIN_VALUE;
+    static final int NO_MOVE = -1;
+    static final int ENTRY_BYTES = 20; // key, score, move and work.
+    private final long[] keys;
+    private final int[] scores;
+    private final int[] moves; // x * size + y, NO_MOVE if no winning move is known.
+    private final int[] works; // nodes ProofSolver searched to prove the entry, 0 for an unused entry.
+    private final int mask;
+    private int count;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param	capacity	The number of entries, rounded down to a power of two.
+     */
+    public ProvenTable(int capacity) {
+        int entries = Integer.highestOneBit (Math.max (2, capacity));
+        mask = entries - 1;
+        keys = new long[entries];
+        scores = new int[entries];
+        moves = new int[entries];
+        works = new int[entries];
+    }
+    /**
+     * Stores a proven score. If the position is already in the table its winning move is kept unless a new one is given, and the larger work is kept.
+     *
+     * @param	key		The key of the position, see Gomoku.positionKey.
+     * @param	score	The exact score of the position.
+     * @param	move	The winning move as x * size + y, or NO_MOVE.
+     * @param	work	How many nodes it took to prove the position, at least 1.
+     * @return	void
+     */
+    public void store(long key, int score, int move, int work) {
+        int index = find (key);
+        if (index < 0) {
+            int first = (int) key & mask & ~1;
+            index = works[first] <= works[first + 1] ? first : first + 1;
+            if (works[index] == 0) {
+                count++;
+            }
+            moves[index] = NO_MOVE;
+        } else {
+            work = Math.max (work, works[index]);
+        }
+        keys[index] = key;
+        scores[index] = score;
+        if (move != NO_MOVE) {
+            moves[index] = move;
+        }
+        works[index] = Math.max (1, work);
+    }
+    /**
+     * Returns the proven score of a position.
+     *
+     * @param	key		The key of the position.
+     * @return	int		The score, or NOT_FOUND if the position is not in the table.
+     */
+    public int score(long key) {
+        int index = find (key);
+        return index < 0 ? NOT_FOUND : scores[index];
+    }
+    /**
+     * Returns the winning move stored for a position.
+     *
+     * @param	key		The key of the position.
+     * @return	int		The move as x * size + y, or NO_MOVE if none is stored.
+     */
+    public int move(long key) {
+        int index = find (key);
+        return index < 0 ? NO_MOVE : moves[index];
+    }
+    /**
+     * Tells whether anything has been stored, so that searches can skip the lookups until then.
+     *
+     * @return	boolean		True if the table has no entries.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    // every key has two possible entries, returns the index of the one holding the key or -1.
+    private int find(long key) {
+        int index = (int) key & mask & ~1;
+        if (works[index] != 0 && keys[index] == key) {
+            return index;
+        }
+        if (works[index + 1] != 0 && keys[index + 1] == key) {
+            return index + 1;
+        }
+        return -1;
+    }
+}// ProvenTable
@@ -0,0 +1,190 @@
+/**
+ * The RunTracker class keeps, for every marker on the board and each of the four directions (row, column and both diagonals), the length of the line of markers
+ * of the same player that runs through it. Lengths are counted up to five since a longer line is a win just the same. Because of that limit only the markers
+ * within four squares of a placed or removed marker can change, so keeping the lengths up to date and asking whether a move made five both take the same time on any board size.
+ */
+public class RunTracker {
+    static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    static final int WINNING_LENGTH = 5;
+    private static final char EMPTY = 0;
+    private final char[][] board;
+    private final int size;
+    private final byte[][][] runs; // [direction][x][y], 0 for an empty square.
+
+    /**
+     * Creates a tracker for a board. The tracker reads the board but never changes it.
+     *
+     * @param	board	The board of the game.
+     */
+    public RunTracker(char[][] board) {
+        this.board = board;
+        this.size = board.length;
+        runs = new byte[DIRECTIONS.length][size][size];
+        refreshAll ();
+    }
+    /**
+     * Counts every line again, used when the board has been changed without calling addStone and removeStone.
+     *
+     * @return	void
+     */
+    public void refreshAll() {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dx = DIRECTIONS[d][0], dy = DIRECTIONS[d][1];
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    runs[d][x][y] = board[x][y] == EMPTY ? 0
+                            : (byte) Math.min (WINNING_LENGTH, 1 + countRun (board, x, y, dx, dy, board[x][y]) + countRun (board, x, y, -dx, -dy, board[x][y]));
+                }
+            }
+        }
+    }
+    /**
+     * Updates the lines after a marker has been placed on x,y. The lines on both sides of the square, which end next to it, are joined.
+     *
+     * @param	x	The X-coordinate of the new marker.
+     * @param	y	The Y-coordinate of the new marker.
+     * @return	void
+     */
+    public void addStone(int x, int y) {
+        char stone = board[x][y];
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dx = DIRECTIONS[d][0], dy = DIRECTIONS[d][1];
+            int before = runAt (d, x - dx, y - dy, stone);
+            int after = runAt (d, x + dx, y + dy, stone);
+            byte length = (byte) Math.min (WINNING_LENGTH, before + 1 + after);
+            runs[d][x][y] = length;
+            // markers further away than four squares are in a line of at least five already.
+            for (int step = 1; step <= Math.min (before, WINNING_LENGTH - 1); step++) {
+                runs[d][x - step * dx][y - step * dy] = length;
+            }
+            for (int step = 1; step <= Math.min (after, WINNING_LENGTH - 1); step++) {
+                runs[d][x + step * dx][y + step * dy] = length;
+            }
+        }
+    }
+    /**
+     * Updates the lines before the marker on x,y is removed. The line through the square is split in two and both parts are counted again.
+     *
+     * @param	x	The X-coordinate of the marker that is about to be removed.
+     * @param	y	The Y-coordinate of the marker that is about to be removed.
+     * @return	void
+     */
+    public void removeStone(int x, int y) {
+        char stone = board[x][y];
+        if (stone == EMPTY) {
+            return;
+        }
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dx = DIRECTIONS[d][0], dy = DIRECTIONS[d][1];
+            runs[d][x][y] = 0;
+            splitRun (d, x, y, -dx, -dy, stone);
+            splitRun (d, x, y, dx, dy, stone);
+        }
+    }
+    /**
+     * Gives the markers on one side of a removed marker the length of their part of the line. The part is counted one square further than the markers that
+     * are given a new length so that a part of four can be told apart from a longer one.
+     */
+    private void splitRun(int d, int x, int y, int dx, int dy, char stone) {
+        int count = countRun (board, x, y, dx, dy, stone);
+        boolean isLonger = count == WINNING_LENGTH - 1 && isStone (x + WINNING_LENGTH * dx, y + WINNING_LENGTH * dy, stone);
+        byte length = (byte) (isLonger ? WINNING_LENGTH : count);
+        for (int step = 1; step <= count; step++) {
+            runs[d][x + step * dx][y + step * dy] = length;
+        }
+    }
+    /**
+     * Returns the length of the line of markers of the same player through x,y in one direction, counted up to five. An empty square has length 0.
+     *
+     * @param	x			The X-coordinate of the square.
+     * @param	y			The Y-coordinate of the square.
+     * @param	direction	The index of the direction in DIRECTIONS.
+     * @return	int			The length of the line.
+     */
+    public int runLength(int x, int y, int direction) {
+        return runs[direction][x][y];
+    }
+    /**
+     * Returns the length of the longest line of markers of the same player through x,y, counted up to five.
+     *
+     * @param	x		The X-coordinate of the square.
+     * @param	y		The Y-coordinate of the square.
+     * @return	int		The length of the longest line.
+     */
+    public int longestRun(int x, int y) {
+        int longest = 0;
+        for (byte[][] run : runs) {
+            longest = Math.max (longest, run[x][y]);
+        }
+        return longest;
+    }
+    /**
+     * Tells whether the marker on x,y is part of five or more in a row. A square outside the board or without a marker is not.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @return	boolean		True if the marker is part of a win.
+     */
+    public boolean isFive(int x, int y) {
+        return x >= 0 && y >= 0 && x < size && y < size && longestRun (x, y) >= WINNING_LENGTH;
+    }
+    /**
+     * Tells whether placing a marker of the given player on the empty square x,y would make five in a row. The lines next to an empty square end at it,
+     * so their lengths are simply added.
+     *
+     * @param	x			The X-coordinate of the empty square.
+     * @param	y			The Y-coordinate of the empty square.
+     * @param	stone		The marker of the player.
+     * @return	boolean		True if the marker would make five.
+     */
+    public boolean makesFive(int x, int y, char stone) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dx = DIRECTIONS[d][0], dy = DIRECTIONS[d][1];
+            if (runAt (d, x - dx, y - dy, stone) + 1 + runAt (d, x + dx, y + dy, stone) >= WINNING_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Tells whether the marker on x,y is part of five in a row by reading the board itself, for searches that place markers directly on the board without updating a tracker.
+     * At most four squares are read in each direction.
+     *
+     * @param	board		The board.
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @return	boolean		True if the marker is part of a win.
+     */
+    static boolean isFive(char[][] board, int x, int y) {
+        char stone = board[x][y];
+        if (stone == EMPTY) {
+            return false;
+        }
+        for (int[] direction : DIRECTIONS) {
+            if (1 + countRun (board, x, y, direction[0], direction[1], stone) + countRun (board, x, y, -direction[0], -direction[1], stone) >= WINNING_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int runAt(int d, int x, int y, char stone) {
+        return isStone (x, y, stone) ? runs[d][x][y] : 0;
+    }
+
+    private boolean isStone(int x, int y, char stone) {
+        return x >= 0 && y >= 0 && x < size && y < size && board[x][y] == stone;
+    }
+    // counts the markers next to x,y in one direction, at most four.
+    private static int countRun(char[][] board, int x, int y, int dx, int dy, char stone) {
+        int count = 0;
+        x += dx;
+        y += dy;
+        while (count < WINNING_LENGTH - 1 && x >= 0 && y >= 0 && x < board.length && y < board.length && board[x][y] == stone) {
+            count++;
+            x += dx;
+            y += dy;
+        }
+        return count;
+    }
+}// RunTracker
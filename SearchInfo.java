@@ -0,0 +1,55 @@
+/**
+ * The class SearchInfo is one progress report of a search that runs in the background: the deepest finished depth, the best line at that depth
+ * and how many positions were visited since the search started.
+ */
+public class SearchInfo {
+    private static final long MILLISECONDS_PER_SECOND = 1000;
+    private final int depth;
+    private final Variation line;
+    private final long nodes;
+    private final long time;
+
+    public SearchInfo(int depth, Variation line, long nodes, long time) {
+        this.depth = depth;
+        this.line = line;
+        this.nodes = nodes;
+        this.time = time;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Variation getLine() {
+        return line;
+    }
+
+    public Move getMove() {
+        return line.getMove ();
+    }
+
+    public int value() {
+        return line.value ();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+    /**
+     * Returns the milliseconds since the search started.
+     *
+     * @return	long	The time.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long nodesPerSecond() {
+        return time == 0 ? 0 : nodes * MILLISECONDS_PER_SECOND / time;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + ": " + line + " nodes: " + nodes + " (" + nodesPerSecond () + " per second)";
+    }
+}
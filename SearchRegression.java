@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SearchRegression class checks that changes to Gomoku and Evaluate do not change the result or the cost of the minimax search by accident.
+ * It searches a set of fixed positions and compares the best move, its value and the number of visited positions (nodes) with the values recorded in a golden file.
+ * Node counts are used instead of time since they are the same on every machine. The search is single-threaded and deterministic, so any difference means that the search changed.
+ *
+ * Usage: java SearchRegression [--regenerate] [--tolerance=percent] [directory]
+ * The directory (default "regression") holds positions.txt with the positions and golden.txt with the expected results. --regenerate rewrites golden.txt from the current search.
+ */
+public class SearchRegression {
+    private static final String DEFAULT_DIRECTORY = "regression";
+    private static final String POSITIONS_FILE = "positions.txt";
+    private static final String GOLDEN_FILE = "golden.txt";
+    private static final double DEFAULT_TOLERANCE = 0; // percent.
+    private static final String COMMENT = "#";
+    private static final String SEPARATOR = " ";
+
+    public static void main(String[] args) throws IOException {
+        boolean regenerate = false;
+        double tolerance = DEFAULT_TOLERANCE;
+        String directory = DEFAULT_DIRECTORY;
+        for (String arg : args) {
+            if (arg.equals ("--regenerate")) {
+                regenerate = true;
+            } else if (arg.startsWith ("--tolerance=")) {
+                tolerance = Double.parseDouble (arg.substring ("--tolerance=".length ()));
+            } else {
+                directory = arg;
+            }
+        }
+
+        Path positionsPath = Paths.get (directory, POSITIONS_FILE);
+        Path goldenPath = Paths.get (directory, GOLDEN_FILE);
+        ArrayList<String> results = new ArrayList<String> ();
+        for (String line : readLines (positionsPath)) {
+            results.add (search (line));
+        }
+
+        if (regenerate) {
+            ArrayList<String> lines = new ArrayList<String> ();
+            lines.add (COMMENT + " name bestX bestY value nodes (written by java SearchRegression --regenerate)");
+            lines.addAll (results);
+            Files.write (goldenPath, lines, StandardCharsets.UTF_8);
+            System.out.println ("Wrote " + results.size () + " results to " + goldenPath);
+            return;
+        }
+
+        Map<String, String> golden = new LinkedHashMap<String, String> ();
+        for (String line : readLines (goldenPath)) {
+            golden.put (line.split (SEPARATOR)[0], line);
+        }
+        int failures = 0;
+        for (String result : results) {
+            String name = result.split (SEPARATOR)[0];
+            String expected = golden.get (name);
+            String error = expected == null ? "no golden result" : compare (expected, result, tolerance);
+            if (error != null) {
+                failures++;
+                System.out.println ("FAIL " + name + ": " + error + " (expected " + expected + ", got " + result + ")");
+            } else {
+                System.out.println ("ok   " + result);
+            }
+        }
+        System.out.println (failures == 0 ? "All " + results.size () + " positions passed" : failures + " of " + results.size () + " positions failed");
+        if (failures > 0) {
+            System.exit (1);
+        }
+    }
+    /**
+     * Sets up one position and searches it.
+     * A position line has the form "name size depth stones..." where every stone is written as O or X followed by x,y, for example O4,4 for a computer marker on 4,4.
+     * The stones are placed in the given order and the last one must be the human's move that the computer answers.
+     *
+     * @param	line	The position line.
+     * @return	String	The result line "name bestX bestY value nodes".
+     */
+    private static String search(String line) {
+        String[] parts = line.split (SEPARATOR);
+        String name = parts[0];
+        Gomoku game = new Gomoku (Integer.parseInt (parts[1]));
+        game.setSearchDepth (Integer.parseInt (parts[2]));
+        int lastX = -1, lastY = -1;
+        for (int i = 3; i < parts.length; i++) {
+            boolean isComputer = parts[i].charAt (0) == 'O';
+            String[] coordinates = parts[i].substring (1).split (",");
+            lastX = Integer.parseInt (coordinates[0]);
+            lastY = Integer.parseInt (coordinates[1]);
+            if (!game.addStone (lastX, lastY, isComputer)) {
+                throw new IllegalArgumentException ("Invalid stone " + parts[i] + " in position " + name);
+            }
+        }
+        game.resetNodeCount ();
+        Move best = game.searchBestMove (lastX, lastY);
+        return name + SEPARATOR + best.getX () + SEPARATOR + best.getY () + SEPARATOR + best.value () + SEPARATOR + game.getNodeCount ();
+    }
+    /**
+     * Compares a result with the golden one. The move and value must be equal and the node count may differ by at most the tolerance.
+     *
+     * @param	expected	The golden result line.
+     * @param	actual		The new result line.
+     * @param	tolerance	How many percent the node count may differ.
+     * @return	String		A description of the difference or null if the result is accepted.
+     */
+    private static String compare(String expected, String actual, double tolerance) {
+        String[] want = expected.split (SEPARATOR);
+        String[] got = actual.split (SEPARATOR);
+        if (!want[1].equals (got[1]) || !want[2].equals (got[2])) {
+            return "best move changed";
+        }
+        if (!want[3].equals (got[3])) {
+            return "value changed";
+        }
+        long wantNodes = Long.parseLong (want[4]);
+        long gotNodes = Long.parseLong (got[4]);
+        if (Math.abs (gotNodes - wantNodes) > wantNodes * tolerance / 100) {
+            return "node count changed by " + String.format ("%+.1f%%", 100.0 * (gotNodes - wantNodes) / wantNodes);
+        }
+        return null;
+    }
+
+    private static List<String> readLines(Path path) throws IOException {
+        ArrayList<String> lines = new ArrayList<String> ();
+        for (String line : Files.readAllLines (path, StandardCharsets.UTF_8)) {
+            line = line.trim ();
+            if (!line.isEmpty () && !line.startsWith (COMMENT)) {
+                lines.add (line);
+            }
+        }
+        return lines;
+    }
+}// SearchRegression
@@ -0,0 +1,204 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SearchStream class runs a timed search of a game on its own thread and publishes a SearchInfo every time a depth is finished, so that a front-end can show
+ * the best move so far while the computer is still thinking. Reports are only delivered as subscribers request them (Flow back-pressure), but a subscriber never
+ * gets an old report: only the newest report that it has not received yet is kept for it, and it replaces any older one still waiting. A subscriber also gets
+ * the newest report published before it subscribed. Completion is signalled once the last report has been delivered. The final move is given by result.
+ *
+ * The search stops at its deadline, when cancel is called or when the last subscriber cancels its subscription. The result is then the best move of the deepest
+ * finished depth. The game must not be changed until the result is complete.
+ */
+public class SearchStream implements Flow.Publisher<SearchInfo> {
+    private final Executor executor = ForkJoinPool.commonPool (); // subscribers are called here so that a slow one cannot hold up the search.
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription> ();
+    private final CompletableFuture<Move> result = new CompletableFuture<Move> ();
+    private final Gomoku game;
+    private final AtomicInteger subscribers = new AtomicInteger ();
+    private volatile boolean isCancelled;
+    private SearchInfo current; // the newest report, guarded by this.
+    private boolean isFinished; // guarded by this.
+    private Throwable failure; // guarded by this.
+
+    /**
+     * Starts searching the current position of the game on a new thread.
+     *
+     * @param	game		The game to search.
+     * @param	x			The X-coordinate that the human player played before computer turn.
+     * @param	y			The Y-coordinate that the human player played before computer turn.
+     * @param	deadline	The time in milliseconds, as given by System.currentTimeMillis, when the search must stop.
+     * @param	maxDepth	The deepest search that is tried.
+     */
+    SearchStream(Gomoku game, int x, int y, long deadline, int maxDepth) {
+        this.game = game;
+        Thread thread = new Thread (() -> run (x, y, deadline, maxDepth), "search-stream");
+        thread.setDaemon (true);
+        thread.start ();
+    }
+
+    private void run(int x, int y, long deadline, int maxDepth) {
+        try {
+            result.complete (game.searchUntil (x, y, deadline, maxDepth, this::publish));
+            finish (null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally (e);
+            finish (e);
+        }
+    }
+
+    private void publish(SearchInfo info) {
+        synchronized (this) {
+            current = info;
+            for (Subscription subscription : subscriptions) {
+                subscription.offer (info);
+            }
+        }
+        // the stop is asked for again here in case cancel was called before the search had started.
+        if (isCancelled) {
+            cancel ();
+        }
+    }
+
+    private synchronized void finish(Throwable error) {
+        isFinished = true;
+        failure = error;
+        for (Subscription subscription : subscriptions) {
+            subscription.schedule ();
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SearchInfo> subscriber) {
+        Subscription subscription = new Subscription (subscriber);
+        subscribers.incrementAndGet ();
+        synchronized (this) {
+            if (current != null) {
+                subscription.offer (current);
+            }
+            subscriptions.add (subscription);
+        }
+        subscription.start ();
+    }
+    /**
+     * Returns the move the search ends with. It completes when the search stops, the marker is not placed on the board.
+     *
+     * @return	CompletableFuture<Move>	The best move with its value.
+     */
+    public CompletableFuture<Move> result() {
+        return result;
+    }
+    /**
+     * Stops the search as soon as possible. The result still completes, with the best move of the deepest finished depth.
+     *
+     * @return	void
+     */
+    public void cancel() {
+        isCancelled = true;
+        if (!result.isDone ()) {
+            game.stopSearch ();
+        }
+    }
+
+    /**
+     * The subscription of one subscriber. It holds at most one report, the newest one the subscriber has not received, and hands it over when the subscriber
+     * has asked for one. Calls to the subscriber are made one at a time on the executor: whoever raises work from 0 runs the loop that delivers.
+     * Work starts at 1 and is only lowered when onSubscribe has returned, so that nothing reaches the subscriber before it.
+     */
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super SearchInfo> subscriber;
+        private final AtomicReference<SearchInfo> waiting = new AtomicReference<SearchInfo> ();
+        private final AtomicLong demand = new AtomicLong ();
+        private final AtomicInteger work = new AtomicInteger (1);
+        private volatile boolean isCancelled;
+        private volatile boolean isInvalidRequest;
+        private boolean isDone; // only used by deliver.
+
+        private Subscription(Flow.Subscriber<? super SearchInfo> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            subscriber.onSubscribe (this);
+            if (work.decrementAndGet () != 0) {
+                executor.execute (this::deliver);
+            }
+        }
+
+        @Override
+        public void request(long count) {
+            if (count <= 0) {
+                isInvalidRequest = true;
+                schedule ();
+                return;
+            }
+            demand.accumulateAndGet (count, (old, added) -> old + added < 0 ? Long.MAX_VALUE : old + added);
+            schedule ();
+        }
+
+        @Override
+        public void cancel() {
+            if (!isCancelled) {
+                isCancelled = true;
+                subscriptions.remove (this);
+                if (subscribers.decrementAndGet () == 0) {
+                    SearchStream.this.cancel ();
+                }
+            }
+        }
+
+        private void offer(SearchInfo info) {
+            waiting.set (info);
+            schedule ();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement () == 0) {
+                executor.execute (this::deliver);
+            }
+        }
+
+        private void deliver() {
+            do {
+                try {
+                    if (isInvalidRequest && !isCancelled && !isDone) {
+                        isDone = true;
+                        cancel ();
+                        subscriber.onError (new IllegalArgumentException ("Requests must be positive!"));
+                    }
+                    if (!isCancelled && !isDone) {
+                        if (demand.get () > 0) {
+                            SearchInfo info = waiting.getAndSet (null);
+                            if (info != null) {
+                                demand.decrementAndGet ();
+                                subscriber.onNext (info);
+                            }
+                        }
+                        boolean isFinished;
+                        Throwable failure;
+                        synchronized (SearchStream.this) {
+                            isFinished = SearchStream.this.isFinished;
+                            failure = SearchStream.this.failure;
+                        }
+                        if (isFinished && waiting.get () == null && !isCancelled) {
+                            isDone = true;
+                            if (failure != null) {
+                                subscriber.onError (failure);
+                            } else {
+                                subscriber.onComplete ();
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    cancel (); // a subscriber that throws is treated as if it had cancelled.
+                }
+            } while (work.decrementAndGet () != 0);
+        }
+    }
+}// SearchStream
@@ -0,0 +1,108 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The SearchWorker class is a separate process that searches root moves for a DistributedSearch coordinator. It listens on a localhost port and answers
+ * one coordinator at a time with a simple line based protocol:
+ *
+ * WEIGHTS [path]								the weight file of the neural network positions are scored with, no path for the handcrafted evaluation.
+ *												Answered with OK, or ERROR if the file cannot be loaded.
+ * POSITION size depth stones...				sets up the position, stones are written as O or X followed by x,y. Answered with OK, or ERROR if the weights cannot be loaded.
+ * SEARCH x y alpha								searches one root move. Answered with RESULT x y value nodes.
+ * QUIT											closes the connection and stops the worker.
+ *
+ * Usage: java SearchWorker [port]	(port 0, the default, picks a free port). When it is ready the worker prints "LISTENING port".
+ */
+public class SearchWorker {
+    static final String LISTENING = "LISTENING";
+    static final String WEIGHTS = "WEIGHTS";
+    static final String POSITION = "POSITION";
+    static final String SEARCH = "SEARCH";
+    static final String RESULT = "RESULT";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+    static final String QUIT = "QUIT";
+    static final String SEPARATOR = " ";
+    private Gomoku game;
+    private String weights; // null for the handcrafted evaluation.
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt (args[0]) : 0;
+        try (ServerSocket server = new ServerSocket (port, 1, InetAddress.getLoopbackAddress ())) {
+            System.out.println (LISTENING + SEPARATOR + server.getLocalPort ());
+            System.out.flush ();
+            SearchWorker worker = new SearchWorker ();
+            boolean isRunning = true;
+            while (isRunning) {
+                try (Socket socket = server.accept ()) {
+                    isRunning = worker.serve (socket);
+                } catch (IOException e) {
+                    System.err.println ("Connection lost: " + e.getMessage ());
+                }
+            }
+        }
+    }
+    /**
+     * Answers the commands of one coordinator until it disconnects or sends QUIT.
+     *
+     * @param	socket		The connection to the coordinator.
+     * @return	boolean		False if the worker was told to quit, true if the coordinator only disconnected.
+     * @throws	IOException	If the connection fails.
+     */
+    private boolean serve(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader (new InputStreamReader (socket.getInputStream (), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter (socket.getOutputStream (), true, StandardCharsets.UTF_8);
+        String line;
+        while ((line = in.readLine ()) != null) {
+            String[] parts = line.split (SEPARATOR);
+            if (parts[0].equals (WEIGHTS)) {
+                // the path is the rest of the line so that it may contain spaces.
+                weights = parts.length > 1 ? line.substring (WEIGHTS.length () + SEPARATOR.length ()) : null;
+                out.println (OK);
+            } else if (parts[0].equals (POSITION)) {
+                try {
+                    game = parsePosition (parts, weights);
+                    out.println (OK);
+                } catch (IOException e) {
+                    // a worker that scores with another evaluation than the coordinator must not answer searches.
+                    game = null;
+                    out.println (ERROR + SEPARATOR + e.getMessage ());
+                }
+            } else if (parts[0].equals (SEARCH)) {
+                if (game == null) {
+                    throw new IOException ("No position to search");
+                }
+                int x = Integer.parseInt (parts[1]);
+                int y = Integer.parseInt (parts[2]);
+                int alpha = Integer.parseInt (parts[3]);
+                game.resetNodeCount ();
+                int value = game.searchRootMove (x, y, alpha);
+                out.println (RESULT + SEPARATOR + x + SEPARATOR + y + SEPARATOR + value + SEPARATOR + game.getNodeCount ());
+            } else if (parts[0].equals (QUIT)) {
+                return false;
+            } else {
+                throw new IOException ("Unknown command: " + line);
+            }
+        }
+        return true;
+    }
+
+    private static Gomoku parsePosition(String[] parts, String weights) throws IOException {
+        Gomoku game = new Gomoku (Integer.parseInt (parts[1]));
+        if (weights != null) {
+            game.loadNeuralWeights (weights);
+        }
+        game.setSearchDepth (Integer.parseInt (parts[2]));
+        for (int i = 3; i < parts.length; i++) {
+            String[] coordinates = parts[i].substring (1).split (",");
+            game.addStone (Integer.parseInt (coordinates[0]), Integer.parseInt (coordinates[1]), parts[i].charAt (0) == 'O');
+        }
+        return game;
+    }
+}// SearchWorker
@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The Symmetry class knows the eight ways a square board can be turned or mirrored onto itself (rotations of 0, 90, 180 and 270 degrees and four reflections).
+ * It is used to find out which of them leave the current position unchanged, so that moves that are mirror images of each other only have to be searched once,
+ * and to calculate a hash of a position that is the same for all eight turned or mirrored versions of it.
+ */
+public class Symmetry {
+    private static final int TRANSFORMATIONS = 8;
+    private static final int IDENTITY = 0;
+    private static final long SEED = 0x5EED_60B0_0C0FL; // fixed so that hashes are the same every time the program runs.
+    private static final char MAX_STONE = 'O';
+    private static final char MIN_STONE = 'X';
+    private final int size;
+    private final long[][] computerKeys;
+    private final long[][] humanKeys;
+
+    /**
+     * Creates the symmetry helper for a board and the random numbers used for hashing positions of that board (Zobrist hashing).
+     *
+     * @param	size	The width of the board.
+     */
+    public Symmetry(int size) {
+        this.size = size;
+        computerKeys = new long[size][size];
+        humanKeys = new long[size][size];
+        Random random = new Random (SEED);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                computerKeys[x][y] = random.nextLong ();
+                humanKeys[x][y] = random.nextLong ();
+            }
+        }
+    }
+    /**
+     * Returns the X-coordinate that x,y is moved to by one of the eight transformations.
+     *
+     * @param	transformation	Which transformation, 0 to 7 where 0 leaves the square where it is.
+     * @param	x				The X-coordinate of the square.
+     * @param	y				The Y-coordinate of the square.
+     * @return	int				The X-coordinate after the transformation.
+     */
+    public int transformX(int transformation, int x, int y) {
+        final int EDGE = size - 1;
+        switch (transformation) {
+            case 0: return x;
+            case 1: return EDGE - y; // rotate 90 degrees.
+            case 2: return EDGE - x; // rotate 180 degrees.
+            case 3: return y; // rotate 270 degrees.
+            case 4: return EDGE - x; // mirror left-right.
+            case 5: return x; // mirror top-bottom.
+            case 6: return y; // mirror along the main diagonal.
+            case 7: return EDGE - y; // mirror along the other diagonal.
+            default: throw new IllegalArgumentException ("Invalid transformation!");
+        }
+    }
+    /**
+     * Returns the Y-coordinate that x,y is moved to by one of the eight transformations.
+     *
+     * @param	transformation	Which transformation, 0 to 7 where 0 leaves the square where it is.
+     * @param	x				The X-coordinate of the square.
+     * @param	y				The Y-coordinate of the square.
+     * @return	int				The Y-coordinate after the transformation.
+     */
+    public int transformY(int transformation, int x, int y) {
+        final int EDGE = size - 1;
+        switch (transformation) {
+            case 0: return y;
+            case 1: return x;
+            case 2: return EDGE - y;
+            case 3: return EDGE - x;
+            case 4: return y;
+            case 5: return EDGE - y;
+            case 6: return x;
+            case 7: return EDGE - x;
+            default: throw new IllegalArgumentException ("Invalid transformation!");
+        }
+    }
+    /**
+     * Finds the transformations that leave the board exactly as it is. The first transformation (doing nothing) is always among them.
+     *
+     * @param	board		The board to look at.
+     * @return	boolean[]	An array with one entry per transformation that is true if the board is symmetric under it.
+     */
+    public boolean[] findSymmetries(char[][] board) {
+        boolean[] symmetries = new boolean[TRANSFORMATIONS];
+        symmetries[IDENTITY] = true;
+        for (int t = 1; t < TRANSFORMATIONS; t++) {
+            symmetries[t] = isSymmetric (board, t);
+        }
+        return symmetries;
+    }
+
+    private boolean isSymmetric(char[][] board, int transformation) {
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (board[x][y] != board[transformX (transformation, x, y)][transformY (transformation, x, y)]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    /**
+     * Removes moves that are mirror images of an earlier move in the list in the current position. Only the first move of every group of equivalent moves is kept.
+     * If the board has no symmetry a copy of the whole list is returned.
+     *
+     * @param	board			The board the moves would be played on.
+     * @param	moves			The moves to filter.
+     * @return	ArrayList<Move>	The moves that are left, in the same order as before.
+     */
+    public ArrayList<Move> uniqueMoves(char[][] board, List<Move> moves) {
+        boolean[] symmetries = findSymmetries (board);
+        boolean hasSymmetry = false;
+        for (int t = 1; t < TRANSFORMATIONS; t++) {
+            hasSymmetry |= symmetries[t];
+        }
+        if (!hasSymmetry) {
+            return new ArrayList<Move> (moves);
+        }
+
+        boolean[][] covered = new boolean[size][size];
+        ArrayList<Move> unique = new ArrayList<Move> ();
+        for (Move move : moves) {
+            int x = move.getX ();
+            int y = move.getY ();
+            if (covered[x][y]) {
+                continue;
+            }
+            unique.add (move);
+            for (int t = 0; t < TRANSFORMATIONS; t++) {
+                if (symmetries[t]) {
+                    covered[transformX (t, x, y)][transformY (t, x, y)] = true;
+                }
+            }
+        }
+        return unique;
+    }
+    /**
+     * Returns the random number that a marker on x,y adds to the hash of a board. A hash can be kept up to date by combining it with this number (exclusive or) whenever the marker is placed or removed.
+     *
+     * @param	x			The X-coordinate of the marker.
+     * @param	y			The Y-coordinate of the marker.
+     * @param	isComputer	Whether it is the computer's marker.
+     * @return	long		The number for the marker.
+     */
+    public long key(int x, int y, boolean isComputer) {
+        return isComputer ? computerKeys[x][y] : humanKeys[x][y];
+    }
+    /**
+     * Calculates a 64-bit hash of the board.
+     *
+     * @param	board	The board to hash.
+     * @return	long	The hash of the board.
+     */
+    public long hash(char[][] board) {
+        return hash (board, IDENTITY);
+    }
+    /**
+     * Calculates a 64-bit hash that is the same for a board and all of its turned and mirrored versions, by hashing all eight versions and keeping the smallest.
+     * Search caches can use it to share results between positions that are really the same.
+     *
+     * @param	board	The board to hash.
+     * @return	long	The symmetry-independent hash of the board.
+     */
+    public long canonicalHash(char[][] board) {
+        long smallest = hash (board, IDENTITY);
+        for (int t = 1; t < TRANSFORMATIONS; t++) {
+            smallest = Math.min (smallest, hash (board, t));
+        }
+        return smallest;
+    }
+
+    private long hash(char[][] board, int transformation) {
+        long hash = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                char square = board[x][y];
+                if (square == MAX_STONE) {
+                    hash ^= computerKeys[transformX (transformation, x, y)][transformY (transformation, x, y)];
+                } else if (square == MIN_STONE) {
+                    hash ^= humanKeys[transformX (transformation, x, y)][transformY (transformation, x, y)];
+                }
+            }
+        }
+        return hash;
+    }
+}// Symmetry
@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+
+/**
+ * The ThreatTracker class keeps track of the empty squares where a player would get five in a row by placing a marker there.
+ * It is updated whenever a marker is placed or removed, and since such a square can only be affected by markers on its own lines within four squares,
+ * only those squares are looked at again, and each of them is checked from the line lengths kept by a RunTracker. The search uses it to cut down the moves it tries: if the player to move can win at once only the winning move is tried,
+ * and if the opponent threatens to win at once only the moves that block it are tried.
+ */
+public class ThreatTracker {
+    private static final int[][] DIRECTIONS = RunTracker.DIRECTIONS;
+    private static final int WINNING_LENGTH = RunTracker.WINNING_LENGTH;
+    private static final char MAX_STONE = 'O';
+    private static final char MIN_STONE = 'X';
+    private static final char EMPTY = 0;
+    private final char[][] board;
+    private final RunTracker runs;
+    private final int size;
+    private final boolean[][] computerFives;
+    private final boolean[][] humanFives;
+    private int computerCount, humanCount;
+
+    /**
+     * Creates a tracker for a board. The tracker reads the board but never changes it.
+     *
+     * @param	board	The board of the game.
+     * @param	runs	The line lengths of the same board, which must be updated before this tracker.
+     */
+    public ThreatTracker(char[][] board, RunTracker runs) {
+        this.board = board;
+        this.runs = runs;
+        this.size = board.length;
+        computerFives = new boolean[size][size];
+        humanFives = new boolean[size][size];
+        refreshAll ();
+    }
+    /**
+     * Looks at every square of the board again, used when the board has been changed without calling update.
+     *
+     * @return	void
+     */
+    public void refreshAll() {
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                refresh (x, y);
+            }
+        }
+    }
+    /**
+     * Updates the tracker after a marker has been placed on or removed from x,y.
+     *
+     * @param	x	The X-coordinate of the square that changed.
+     * @param	y	The Y-coordinate of the square that changed.
+     * @return	void
+     */
+    public void update(int x, int y) {
+        refresh (x, y);
+        for (int[] direction : DIRECTIONS) {
+            for (int step = 1; step < WINNING_LENGTH; step++) {
+                refreshIfOnBoard (x + step * direction[0], y + step * direction[1]);
+                refreshIfOnBoard (x - step * direction[0], y - step * direction[1]);
+            }
+        }
+    }
+    /**
+     * Tells whether a player would get five in a row by placing a marker on x,y.
+     *
+     * @param	x			The X-coordinate of the square.
+     * @param	y			The Y-coordinate of the square.
+     * @param	isComputer	Which player.
+     * @return	boolean		True if the square wins for the player.
+     */
+    public boolean isFiveSquare(int x, int y, boolean isComputer) {
+        return isComputer ? computerFives[x][y] : humanFives[x][y];
+    }
+    /**
+     * Returns how many squares would give a player five in a row.
+     *
+     * @param	isComputer	Which player.
+     * @return	int			The number of squares.
+     */
+    public int countFiveSquares(boolean isComputer) {
+        return isComputer ? computerCount : humanCount;
+    }
+    /**
+     * Cuts down a list of moves when the position forces the reply. If the player to move can make five the first such move is returned alone, otherwise if
+     * the opponent could make five the moves that block it are returned. If neither is the case the list is returned as it is.
+     *
+     * @param	moves			The moves that would be tried.
+     * @param	isComputersTurn	Whether the computer is to move.
+     * @return	ArrayList<Move>	The moves that are worth trying.
+     */
+    public ArrayList<Move> restrict(ArrayList<Move> moves, boolean isComputersTurn) {
+        if (countFiveSquares (isComputersTurn) > 0) {
+            for (Move move : moves) {
+                if (isFiveSquare (move.getX (), move.getY (), isComputersTurn)) {
+                    ArrayList<Move> win = new ArrayList<Move> (1);
+                    win.add (move);
+                    return win;
+                }
+            }
+        }
+        if (countFiveSquares (!isComputersTurn) > 0) {
+            ArrayList<Move> blocks = new ArrayList<Move> ();
+            for (Move move : moves) {
+                if (isFiveSquare (move.getX (), move.getY (), !isComputersTurn)) {
+                    blocks.add (move);
+                }
+            }
+            if (!blocks.isEmpty ()) {
+                return blocks;
+            }
+        }
+        return moves;
+    }
+
+    private void refreshIfOnBoard(int x, int y) {
+        if (x >= 0 && y >= 0 && x < size && y < size) {
+            refresh (x, y);
+        }
+    }
+
+    private void refresh(int x, int y) {
+        boolean isEmpty = board[x][y] == EMPTY;
+        boolean computerFive = isEmpty && runs.makesFive (x, y, MAX_STONE);
+        boolean humanFive = isEmpty && runs.makesFive (x, y, MIN_STONE);
+        computerCount += (computerFive ? 1 : 0) - (computerFives[x][y] ? 1 : 0);
+        humanCount += (humanFive ? 1 : 0) - (humanFives[x][y] ? 1 : 0);
+        computerFives[x][y] = computerFive;
+        humanFives[x][y] = humanFive;
+    }
+}// ThreatTracker
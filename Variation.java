@@ -0,0 +1,38 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class Variation stores one line found by an analysis: the value of the line for the computer and the moves of the principal variation,
+ * the moves both players are expected to make, starting with the computer's move.
+ */
+public class Variation {
+    private final int value;
+    private final List<Move> moves;
+
+    public Variation(int value, ArrayList<Move> moves) {
+        this.value = value;
+        this.moves = Collections.unmodifiableList (new ArrayList<Move> (moves));
+    }
+
+    public int value() {
+        return value;
+    }
+
+    public Move getMove() {
+        return moves.get (0);
+    }
+
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder ();
+        for (Move move : moves) {
+            line.append (move.getX ()).append (',').append (move.getY ()).append (' ');
+        }
+        return line.append ("value: ").append (value).toString ();
+    }
+}